@@ -0,0 +1,34 @@
+package com.cydeo.banksimulation.config;
+
+import com.cydeo.banksimulation.entity.JournalCheckpoint;
+import com.cydeo.banksimulation.repository.JournalCheckpointRepository;
+import com.cydeo.banksimulation.util.TransferJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+@ConditionalOnProperty(value = "transfer.journal.enabled", havingValue = "true")
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public TransferJournal transferJournal(JournalCheckpointRepository journalCheckpointRepository,
+                                           @Value("${transfer.journal.dir:journal}") String directory,
+                                           @Value("${transfer.journal.segment-size:67108864}") int segmentSize) throws IOException {
+        long projected = journalCheckpointRepository.findById(JournalCheckpoint.TRANSFER_JOURNAL)
+                .map(JournalCheckpoint::getProjectedSequence)
+                .orElse(0L);
+        TransferJournal journal = new TransferJournal(Paths.get(directory), segmentSize, projected + 1);
+        if (journal.getLastSequence() < projected) {
+            journal.close();
+            throw new IllegalStateException("Transfer journal in " + directory + " ends at " + journal.getLastSequence()
+                    + " but transfers up to " + projected + " were already projected");
+        }
+        return journal;
+    }
+
+}
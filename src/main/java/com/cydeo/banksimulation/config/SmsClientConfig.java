@@ -0,0 +1,87 @@
+package com.cydeo.banksimulation.config;
+
+import com.cydeo.banksimulation.util.CircuitBreaker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class SmsClientConfig {
+
+    @Value("${sms.client.max-connections:20}")
+    private int maxConnections;
+
+    @Value("${sms.client.connect-timeout-millis:1000}")
+    private int connectTimeoutMillis;
+
+    @Value("${sms.client.read-timeout-millis:2000}")
+    private int readTimeoutMillis;
+
+    @Value("${sms.client.pool-timeout-millis:500}")
+    private int poolTimeoutMillis;
+
+    @Value("${sms.client.idle-timeout-millis:30000}")
+    private long idleTimeoutMillis;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager smsConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        // every sms goes to the same gateway, so the whole pool belongs to a single route
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        Gauge.builder("sms.http.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased()).register(meterRegistry);
+        Gauge.builder("sms.http.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable()).register(meterRegistry);
+        Gauge.builder("sms.http.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending()).register(meterRegistry);
+        Gauge.builder("sms.http.pool.max", connectionManager, cm -> cm.getTotalStats().getMax()).register(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient smsHttpClient(PoolingHttpClientConnectionManager smsConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(poolTimeoutMillis)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(smsConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate smsRestTemplate(CloseableHttpClient smsHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(smsHttpClient));
+    }
+
+    @Bean
+    public CircuitBreaker smsCircuitBreaker(@Value("${sms.circuit.failure-threshold:5}") int failureThreshold,
+                                            @Value("${sms.circuit.open-millis:10000}") long openMillis,
+                                            MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(failureThreshold, openMillis);
+        Gauge.builder("sms.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0 = closed, 1 = half open, 2 = open")
+                .register(meterRegistry);
+        FunctionCounter.builder("sms.circuit.rejected", circuitBreaker, CircuitBreaker::getRejectedCalls)
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+}
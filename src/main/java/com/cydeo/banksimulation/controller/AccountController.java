@@ -1,10 +1,15 @@
 package com.cydeo.banksimulation.controller;
 
 import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.CursorPageDTO;
+import com.cydeo.banksimulation.dto.OnboardingResultDTO;
 import com.cydeo.banksimulation.dto.OtpDTO;
 import com.cydeo.banksimulation.dto.ResponseWrapper;
 import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.enums.ExportFormat;
 import com.cydeo.banksimulation.service.AccountService;
+import com.cydeo.banksimulation.service.IdempotencyService;
+import com.cydeo.banksimulation.service.OnboardingService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -12,31 +17,53 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.List;
+import java.io.IOException;
 
 @Controller
 @RequestMapping("/v1/account")
 public class AccountController {
 
     private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
+    private final OnboardingService onboardingService;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, IdempotencyService idempotencyService,
+                             OnboardingService onboardingService) {
         this.accountService = accountService;
+        this.idempotencyService = idempotencyService;
+        this.onboardingService = onboardingService;
     }
 
     @GetMapping
-    public List<AccountDTO> accountList() {
-        return accountService.listAllAccount();
+    public ResponseEntity<ResponseWrapper> accountList(@RequestParam(value = "cursor", required = false) String cursor,
+                                                       @RequestParam(value = "size", defaultValue = "50") int size,
+                                                       @RequestParam(value = "active", defaultValue = "false") boolean activeOnly) {
+        CursorPageDTO<AccountDTO> accountPage = activeOnly
+                ? accountService.listAllActiveAccount(cursor, size)
+                : accountService.listAllAccount(cursor, size);
+        return ResponseEntity.ok(new ResponseWrapper("Accounts are successfully retrieved", accountPage, HttpStatus.OK));
     }
 
     @PostMapping
-    public ResponseEntity<ResponseWrapper> createAccount(@RequestBody AccountDTO accountDTO) throws Exception {
-        OtpDTO otpDTO = accountService.createNewAccount(accountDTO);
-        return ResponseEntity.ok(new ResponseWrapper("Account is successfully created with non verified",otpDTO , HttpStatus.OK));
+    public ResponseEntity<ResponseWrapper> createAccount(@RequestBody AccountDTO accountDTO,
+                                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws Exception {
+        return idempotencyService.execute(idempotencyKey, "account", accountDTO, () -> {
+            OtpDTO otpDTO = accountService.createNewAccount(accountDTO);
+            return ResponseEntity.ok(new ResponseWrapper("Account is successfully created with non verified",otpDTO , HttpStatus.OK));
+        });
 
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<ResponseWrapper> onboardAccounts(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                           HttpServletRequest request) throws IOException {
+        ExportFormat onboardingFormat = ExportFormat.parse(format, "Onboarding format needs to be ndjson or csv");
+        OnboardingResultDTO result = onboardingService.onboardAccounts(onboardingFormat, request.getInputStream());
+        return ResponseEntity.ok(new ResponseWrapper("Accounts are onboarded with non verified", result, HttpStatus.OK));
+    }
+
     @GetMapping("/delete/{id}")
     public ResponseEntity<ResponseWrapper> deleteUser(@PathVariable("id") Long id) {
         accountService.deleteAccount(id);
@@ -0,0 +1,49 @@
+package com.cydeo.banksimulation.controller;
+
+import com.cydeo.banksimulation.enums.ExportFormat;
+import com.cydeo.banksimulation.service.ExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Controller
+@RequestMapping("/v1/export")
+public class ExportController {
+
+    private static final String FORMAT_ERROR = "Export format needs to be ndjson or csv";
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/accounts")
+    public void exportAccounts(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.parse(format, FORMAT_ERROR);
+        prepareResponse(response, exportFormat, "accounts");
+        exportService.exportAccounts(exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping("/transactions")
+    public void exportTransactions(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                   HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.parse(format, FORMAT_ERROR);
+        prepareResponse(response, exportFormat, "transactions");
+        exportService.exportTransactions(exportFormat, response.getOutputStream());
+    }
+
+    private void prepareResponse(HttpServletResponse response, ExportFormat exportFormat, String name) {
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "." + exportFormat.getExtension() + "\"");
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.cydeo.banksimulation.controller;
+
+import com.cydeo.banksimulation.dto.ResponseWrapper;
+import com.cydeo.banksimulation.service.LedgerService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Date;
+
+@Controller
+@RequestMapping("/v1/ledger")
+public class LedgerController {
+
+    private final LedgerService ledgerService;
+
+    public LedgerController(LedgerService ledgerService) {
+        this.ledgerService = ledgerService;
+    }
+
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<ResponseWrapper> balanceAt(@PathVariable("accountId") Long accountId,
+                                                     @RequestParam(value = "at", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date at) {
+        return ResponseEntity.ok(new ResponseWrapper("Balance is successfully retrieved",
+                ledgerService.balanceAt(accountId, at == null ? new Date() : at).toBigDecimal(), HttpStatus.OK));
+    }
+
+    @PostMapping("/snapshot")
+    public ResponseEntity<ResponseWrapper> snapshot() {
+        return ResponseEntity.ok(new ResponseWrapper("Ledger snapshot is taken",
+                ledgerService.snapshotBalances(), HttpStatus.OK));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<ResponseWrapper> rebuild() {
+        return ResponseEntity.ok(new ResponseWrapper("Balances are rebuilt from the ledger",
+                ledgerService.rebuildBalances(), HttpStatus.OK));
+    }
+
+}
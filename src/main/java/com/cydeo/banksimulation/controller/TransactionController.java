@@ -3,39 +3,64 @@ package com.cydeo.banksimulation.controller;
 import com.cydeo.banksimulation.dto.AccountDTO;
 import com.cydeo.banksimulation.dto.ResponseWrapper;
 import com.cydeo.banksimulation.dto.TransactionDTO;
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
 import com.cydeo.banksimulation.service.AccountService;
+import com.cydeo.banksimulation.service.IdempotencyService;
 import com.cydeo.banksimulation.service.TransactionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
 import java.util.Date;
+import java.util.List;
 
 @Controller
 public class TransactionController {
 
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
 
-    public TransactionController(AccountService accountService, TransactionService transactionService) {
+    public TransactionController(AccountService accountService, TransactionService transactionService,
+                                 IdempotencyService idempotencyService) {
         this.accountService = accountService;
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<ResponseWrapper> makeTransfer(TransactionDTO transactionDTO) {
+    public ResponseEntity<ResponseWrapper> makeTransfer(TransactionDTO transactionDTO,
+                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         AccountDTO reciever = transactionDTO.getReceiver();
         AccountDTO sender = transactionDTO.getSender();
-        transactionService.makeTransfer(transactionDTO.getAmount(), new Date(), sender, reciever, transactionDTO.getMessage());
-        return ResponseEntity.ok(new ResponseWrapper("Transaction is successfully made", HttpStatus.OK));
+        TransferRequestDTO request = new TransferRequestDTO(sender == null ? null : sender.getId(),
+                reciever == null ? null : reciever.getId(), transactionDTO.getAmount(), transactionDTO.getMessage());
+        return idempotencyService.execute(idempotencyKey, "transfer", request, () -> {
+            transactionService.makeTransfer(transactionDTO.getAmount(), new Date(), sender, reciever, transactionDTO.getMessage());
+            return ResponseEntity.ok(new ResponseWrapper("Transaction is successfully made", HttpStatus.OK));
+        });
+
+    }
 
+    @PostMapping("/v1/transfer/batch")
+    public ResponseEntity<ResponseWrapper> makeBatchTransfer(@RequestBody List<TransferRequestDTO> transfers) {
+        List<TransferResultDTO> results = transactionService.makeBatchTransfer(transfers);
+        return ResponseEntity.ok(new ResponseWrapper("Batch transfer is processed", results, HttpStatus.OK));
     }
 
     @GetMapping("/transaction/{id}")
-    public ResponseEntity<ResponseWrapper> transactionDetailById(Long accountId) {
-        return ResponseEntity.ok(new ResponseWrapper("Transaction is successfully made",
-                transactionService.findTransactionListByAccountId(accountId), HttpStatus.OK));
+    public ResponseEntity<ResponseWrapper> transactionDetailById(@PathVariable("id") Long accountId,
+                                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                                 @RequestParam(value = "size", defaultValue = "50") int size) {
+        return ResponseEntity.ok(new ResponseWrapper("Transactions are successfully retrieved",
+                transactionService.findTransactionHistory(accountId, cursor, size), HttpStatus.OK));
     }
 
 }
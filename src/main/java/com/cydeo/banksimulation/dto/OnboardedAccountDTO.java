@@ -0,0 +1,17 @@
+package com.cydeo.banksimulation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OnboardedAccountDTO {
+    private long line;
+    private Long accountId;
+    // confirmed together with the code sent by sms, like the otp of a single account
+    private Long otpId;
+}
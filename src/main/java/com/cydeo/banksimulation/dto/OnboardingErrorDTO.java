@@ -0,0 +1,15 @@
+package com.cydeo.banksimulation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OnboardingErrorDTO {
+    private long line;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.cydeo.banksimulation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OnboardingResultDTO {
+    private long created;
+    private long rejected;
+    // one per created account, in upload order
+    private List<OnboardedAccountDTO> accounts;
+    // at most account.onboarding.max-reported-errors of them, rejected has the full count
+    private List<OnboardingErrorDTO> errors;
+}
@@ -0,0 +1,19 @@
+package com.cydeo.banksimulation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferRequestDTO {
+    private Long senderId;
+    private Long receiverId;
+    private BigDecimal amount;
+    private String message;
+}
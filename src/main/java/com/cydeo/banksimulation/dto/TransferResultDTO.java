@@ -0,0 +1,19 @@
+package com.cydeo.banksimulation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferResultDTO {
+    private Integer index;
+    private boolean success;
+    private Long transactionId;
+    private String message;
+}
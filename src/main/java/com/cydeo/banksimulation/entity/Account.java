@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -16,11 +18,17 @@ import java.util.Date;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = @Index(name = "idx_accounts_status_id", columnList = "account_status, id"))
+@Cacheable
+// read-write keeps the cache consistent with committed rows, bulk and native updates evict the whole region
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Account.CACHE_REGION)
 public class Account {
 
+    public static final String CACHE_REGION = "accounts";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -38,4 +46,10 @@ public class Account {
     private String phoneNumber;
     private Boolean otpVerified;
 
+    // sequence of the latest ledger entry of this account, 0 is the opening entry
+    private Long ledgerSequence = 0L;
+
+    @Version
+    private Long version;
+
 }
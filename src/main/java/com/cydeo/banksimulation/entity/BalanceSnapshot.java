@@ -0,0 +1,39 @@
+package com.cydeo.banksimulation.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "balance_snapshots", indexes = @Index(name = "idx_balance_snapshots_account_sequence",
+        columnList = "account_id, last_sequence"))
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshot_seq")
+    @SequenceGenerator(name = "balance_snapshot_seq", sequenceName = "balance_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    private Long accountId;
+
+    // balance in cents after every entry of the account up to and including lastSequence
+    private Long balanceMinor;
+
+    private Long lastSequence;
+
+    // latest createdAt among the covered entries, the snapshot is valid for balance queries at or after it
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastEntryAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+}
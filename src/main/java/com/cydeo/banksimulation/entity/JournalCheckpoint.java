@@ -0,0 +1,28 @@
+package com.cydeo.banksimulation.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "journal_checkpoints")
+public class JournalCheckpoint {
+
+    public static final Long TRANSFER_JOURNAL = 1L;
+
+    @Id
+    private Long id;
+
+    // sequence of the last journal record applied to accounts and transactions
+    private Long projectedSequence;
+
+}
@@ -0,0 +1,48 @@
+package com.cydeo.banksimulation.entity;
+
+import com.cydeo.banksimulation.enums.EntryType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "ledger_entries", uniqueConstraints = @UniqueConstraint(name = "uk_ledger_entries_account_sequence",
+        columnNames = {"account_id", "entry_sequence"}))
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, updatable = false)
+    private Long accountId;
+
+    // position of the entry within its account, written under the account row lock so it has no gaps
+    @Column(nullable = false, updatable = false)
+    private Long entrySequence;
+
+    @Column(updatable = false)
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private EntryType entryType;
+
+    // signed amount in cents, debits are negative
+    @Column(nullable = false, updatable = false)
+    private Long amountMinor;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false, updatable = false)
+    private Date createdAt;
+
+}
@@ -7,13 +7,14 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import javax.persistence.*;
+import java.util.Date;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "accounts")
+@Table(name = "otps")
 public class Otp {
 
     @Id
@@ -27,4 +28,7 @@ public class Otp {
 
     @Enumerated(EnumType.STRING)
     private VerificationStatus verificationStatus;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresAt;
 }
@@ -0,0 +1,40 @@
+package com.cydeo.banksimulation.entity;
+
+import com.cydeo.banksimulation.enums.SmsStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "sms_outbox", indexes = @Index(name = "idx_sms_outbox_status_next_attempt", columnList = "status, next_attempt_at"))
+public class SmsOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sms_outbox_seq")
+    @SequenceGenerator(name = "sms_outbox_seq", sequenceName = "sms_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    private String phoneNumber;
+
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    private SmsStatus status;
+
+    private int attempts;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date nextAttemptAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+}
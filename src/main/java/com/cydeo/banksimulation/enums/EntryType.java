@@ -0,0 +1,5 @@
+package com.cydeo.banksimulation.enums;
+
+public enum EntryType {
+    OPENING, DEBIT, CREDIT
+}
@@ -0,0 +1,32 @@
+package com.cydeo.banksimulation.enums;
+
+import com.cydeo.banksimulation.exception.BadRequestException;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"), CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // the format request parameter, case insensitive
+    public static ExportFormat parse(String format, String errorMessage) {
+        try {
+            return valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(errorMessage);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.cydeo.banksimulation.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AccountChangedEvent {
+    private final Long accountId;
+}
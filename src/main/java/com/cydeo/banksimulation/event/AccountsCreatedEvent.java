@@ -0,0 +1,13 @@
+package com.cydeo.banksimulation.event;
+
+import com.cydeo.banksimulation.entity.Account;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class AccountsCreatedEvent {
+    private final List<Account> accounts;
+}
@@ -0,0 +1,10 @@
+package com.cydeo.banksimulation.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BalancesRebuiltEvent {
+    private final int correctedAccounts;
+}
@@ -2,24 +2,66 @@ package com.cydeo.banksimulation.mapper;
 
 import com.cydeo.banksimulation.dto.AccountDTO;
 import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.enums.MapperStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class AccountMapper {
 
     private final ModelMapper modelMapper;
+    private final MapperStrategy mapperStrategy;
+    private final Timer toEntityTimer;
+    private final Timer toDtoTimer;
 
-    public AccountMapper(ModelMapper modelMapper) {
+    public AccountMapper(ModelMapper modelMapper, @Value("${mapper.strategy:MANUAL}") MapperStrategy mapperStrategy,
+                         MeterRegistry meterRegistry) {
         this.modelMapper = modelMapper;
+        this.mapperStrategy = mapperStrategy;
+        this.toEntityTimer = meterRegistry.timer("mapper.conversion", "mapper", "account", "direction", "to_entity");
+        this.toDtoTimer = meterRegistry.timer("mapper.conversion", "mapper", "account", "direction", "to_dto");
     }
 
     public Account convertToEntity(AccountDTO accountDTO) {
-        return modelMapper.map(accountDTO, Account.class);
+        return toEntityTimer.record(() -> toEntity(accountDTO));
     }
 
     public AccountDTO convertToDto(Account account) {
-        return modelMapper.map(account, AccountDTO.class);
+        return toDtoTimer.record(() -> toDto(account));
+    }
+
+    private Account toEntity(AccountDTO accountDTO) {
+        if (mapperStrategy == MapperStrategy.MODEL_MAPPER) {
+            return modelMapper.map(accountDTO, Account.class);
+        }
+        if (accountDTO == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setId(accountDTO.getId());
+        account.setAccountType(accountDTO.getAccountType());
+        account.setAccountStatus(accountDTO.getAccountStatus());
+        account.setCreationDate(accountDTO.getCreationDate());
+        account.setUserId(accountDTO.getUserId());
+        account.setBalance(accountDTO.getBalance());
+        account.setOtpVerified(accountDTO.getOtpVerified());
+        account.setPhoneNumber(accountDTO.getPhoneNumber());
+        return account;
+    }
+
+    private AccountDTO toDto(Account account) {
+        if (mapperStrategy == MapperStrategy.MODEL_MAPPER) {
+            return modelMapper.map(account, AccountDTO.class);
+        }
+        if (account == null) {
+            return null;
+        }
+        return new AccountDTO(account.getId(), account.getAccountType(), account.getAccountStatus(),
+                account.getCreationDate(), account.getUserId(), account.getBalance(),
+                account.getOtpVerified(), account.getPhoneNumber());
     }
 
 }
@@ -2,24 +2,66 @@ package com.cydeo.banksimulation.mapper;
 
 import com.cydeo.banksimulation.dto.TransactionDTO;
 import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.MapperStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TransactionMapper {
 
     private final ModelMapper modelMapper;
+    private final AccountMapper accountMapper;
+    private final MapperStrategy mapperStrategy;
+    private final Timer toEntityTimer;
+    private final Timer toDtoTimer;
 
-    public TransactionMapper(ModelMapper modelMapper) {
+    public TransactionMapper(ModelMapper modelMapper, AccountMapper accountMapper,
+                             @Value("${mapper.strategy:MANUAL}") MapperStrategy mapperStrategy,
+                             MeterRegistry meterRegistry) {
         this.modelMapper = modelMapper;
+        this.accountMapper = accountMapper;
+        this.mapperStrategy = mapperStrategy;
+        this.toEntityTimer = meterRegistry.timer("mapper.conversion", "mapper", "transaction", "direction", "to_entity");
+        this.toDtoTimer = meterRegistry.timer("mapper.conversion", "mapper", "transaction", "direction", "to_dto");
     }
 
     public Transaction convertToEntity(TransactionDTO transactionDTO) {
-        return modelMapper.map(transactionDTO, Transaction.class);
+        return toEntityTimer.record(() -> toEntity(transactionDTO));
     }
 
     public TransactionDTO convertToDto(Transaction transaction) {
-        return modelMapper.map(transaction, TransactionDTO.class);
+        return toDtoTimer.record(() -> toDto(transaction));
+    }
+
+    private Transaction toEntity(TransactionDTO transactionDTO) {
+        if (mapperStrategy == MapperStrategy.MODEL_MAPPER) {
+            return modelMapper.map(transactionDTO, Transaction.class);
+        }
+        if (transactionDTO == null) {
+            return null;
+        }
+        Transaction transaction = new Transaction();
+        transaction.setSender(accountMapper.convertToEntity(transactionDTO.getSender()));
+        transaction.setReceiver(accountMapper.convertToEntity(transactionDTO.getReceiver()));
+        transaction.setAmount(transactionDTO.getAmount());
+        transaction.setMessage(transactionDTO.getMessage());
+        transaction.setCreationDate(transactionDTO.getCreationDate());
+        return transaction;
+    }
+
+    private TransactionDTO toDto(Transaction transaction) {
+        if (mapperStrategy == MapperStrategy.MODEL_MAPPER) {
+            return modelMapper.map(transaction, TransactionDTO.class);
+        }
+        if (transaction == null) {
+            return null;
+        }
+        return new TransactionDTO(accountMapper.convertToDto(transaction.getSender()),
+                accountMapper.convertToDto(transaction.getReceiver()), transaction.getAmount(),
+                transaction.getMessage(), transaction.getCreationDate());
     }
 
 }
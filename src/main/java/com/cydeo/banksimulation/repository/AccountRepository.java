@@ -1,15 +1,72 @@
 package com.cydeo.banksimulation.repository;
 
+import com.cydeo.banksimulation.dto.AccountDTO;
 import com.cydeo.banksimulation.entity.Account;
 import com.cydeo.banksimulation.enums.AccountStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
 
-    List<Account> findAllByAccountStatus(AccountStatus active);
+    String ACCOUNT_QUERY_REGION = "account-queries";
+
+    @Query("SELECT new com.cydeo.banksimulation.dto.AccountDTO(a.id, a.accountType, a.accountStatus, a.creationDate, " +
+            "a.userId, a.balance, a.otpVerified, a.phoneNumber) FROM Account a WHERE a.id > ?1 ORDER BY a.id")
+    List<AccountDTO> findPageAfter(Long afterId, Pageable pageable);
+
+    // the active account listing, cached pages are dropped by Hibernate whenever the accounts table is written
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = ACCOUNT_QUERY_REGION)})
+    @Query("SELECT new com.cydeo.banksimulation.dto.AccountDTO(a.id, a.accountType, a.accountStatus, a.creationDate, " +
+            "a.userId, a.balance, a.otpVerified, a.phoneNumber) FROM Account a " +
+            "WHERE a.accountStatus = ?1 AND a.id > ?2 ORDER BY a.id")
+    List<AccountDTO> findPageByAccountStatusAfter(AccountStatus accountStatus, Long afterId, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Account a ORDER BY a.id")
+    Stream<Account> streamAll();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = ?1")
+    Optional<Account> findByIdForUpdate(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN ?1 ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(Collection<Long> ids);
+
+    // blocks transfers while balances are rebuilt, reads keep working
+    @Modifying
+    @Query(value = "LOCK TABLE accounts IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    // balance = latest snapshot + entries after it, only accounts that drifted are written
+    @Modifying
+    @Query(value = "WITH latest AS (" + BalanceSnapshotRepository.LATEST_SNAPSHOTS + "), " +
+            "totals AS (SELECT e.account_id, SUM(e.amount_minor) AS delta FROM ledger_entries e " +
+            "LEFT JOIN latest l ON l.account_id = e.account_id " +
+            "WHERE e.entry_sequence > COALESCE(l.last_sequence, -1) GROUP BY e.account_id) " +
+            "UPDATE accounts a SET balance = (COALESCE(l.balance_minor, 0) + COALESCE(t.delta, 0)) / 100.0, version = a.version + 1 " +
+            "FROM accounts x LEFT JOIN latest l ON l.account_id = x.id LEFT JOIN totals t ON t.account_id = x.id " +
+            "WHERE a.id = x.id AND a.balance IS DISTINCT FROM (COALESCE(l.balance_minor, 0) + COALESCE(t.delta, 0)) / 100.0",
+            nativeQuery = true)
+    int rebuildBalancesFromLedger();
 
 }
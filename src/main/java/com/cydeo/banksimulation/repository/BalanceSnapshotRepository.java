@@ -0,0 +1,32 @@
+package com.cydeo.banksimulation.repository;
+
+import com.cydeo.banksimulation.entity.BalanceSnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    String LATEST_SNAPSHOTS = "SELECT DISTINCT ON (account_id) account_id, balance_minor, last_sequence, last_entry_at " +
+            "FROM balance_snapshots ORDER BY account_id, last_sequence DESC";
+
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.accountId = ?1 AND s.lastEntryAt <= ?2 ORDER BY s.lastSequence DESC")
+    List<BalanceSnapshot> findLatestAt(Long accountId, Date at, Pageable pageable);
+
+    // one set based statement: every account with entries past its latest snapshot gets a new snapshot
+    @Modifying
+    @Query(value = "INSERT INTO balance_snapshots (id, account_id, balance_minor, last_sequence, last_entry_at, created_at) " +
+            "SELECT nextval('balance_snapshot_seq'), e.account_id, COALESCE(l.balance_minor, 0) + SUM(e.amount_minor), " +
+            "MAX(e.entry_sequence), GREATEST(MAX(e.created_at), l.last_entry_at), now() " +
+            "FROM ledger_entries e LEFT JOIN (" + LATEST_SNAPSHOTS + ") l ON l.account_id = e.account_id " +
+            "WHERE e.entry_sequence > COALESCE(l.last_sequence, -1) " +
+            "GROUP BY e.account_id, l.balance_minor, l.last_entry_at", nativeQuery = true)
+    int snapshotBalances();
+
+}
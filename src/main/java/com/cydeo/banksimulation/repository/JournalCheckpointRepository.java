@@ -0,0 +1,9 @@
+package com.cydeo.banksimulation.repository;
+
+import com.cydeo.banksimulation.entity.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpoint, Long> {
+}
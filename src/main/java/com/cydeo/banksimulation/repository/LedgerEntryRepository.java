@@ -0,0 +1,17 @@
+package com.cydeo.banksimulation.repository;
+
+import com.cydeo.banksimulation.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("SELECT COALESCE(SUM(e.amountMinor), 0L) FROM LedgerEntry e " +
+            "WHERE e.accountId = ?1 AND e.entrySequence > ?2 AND e.createdAt <= ?3")
+    Long sumAfter(Long accountId, Long afterSequence, Date at);
+
+}
@@ -0,0 +1,28 @@
+package com.cydeo.banksimulation.repository;
+
+import com.cydeo.banksimulation.entity.SmsOutbox;
+import com.cydeo.banksimulation.enums.SmsStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface SmsOutboxRepository extends JpaRepository<SmsOutbox, Long> {
+
+    // lock timeout -2 makes Hibernate render FOR UPDATE SKIP LOCKED, so several nodes can drain the outbox
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT s FROM SmsOutbox s WHERE s.status = ?1 AND s.nextAttemptAt <= ?2 ORDER BY s.id")
+    List<SmsOutbox> findDueForUpdate(SmsStatus status, Date now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE SmsOutbox s SET s.status = ?2 WHERE s.id IN ?1")
+    int updateStatus(Collection<Long> ids, SmsStatus status);
+
+}
@@ -1,19 +1,48 @@
 package com.cydeo.banksimulation.repository;
 
 import com.cydeo.banksimulation.entity.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Temporal;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import javax.persistence.TemporalType;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
-    @Query(value = "SELECT * FROM transactions ORDER BY creation_date ASC LIMIT 10", nativeQuery = true)
-    List<Transaction> findLastTenTransactions();
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.sender JOIN FETCH t.receiver ORDER BY t.creationDate DESC, t.id DESC")
+    List<Transaction> findRecentTransactions(Pageable pageable);
+
+    // ids only, the union keeps both index range scans; the rows and their accounts come from findAllWithAccountsByIdIn
+    @Query(value = "SELECT id FROM (" +
+            "(SELECT id, creation_date FROM transactions WHERE sender_id = :accountId " +
+            "AND (creation_date, id) < (:beforeDate, :beforeId) ORDER BY creation_date DESC, id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT id, creation_date FROM transactions WHERE receiver_id = :accountId " +
+            "AND (creation_date, id) < (:beforeDate, :beforeId) ORDER BY creation_date DESC, id DESC LIMIT :limit)" +
+            ") history ORDER BY creation_date DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Number> findHistoryPageIds(@Param("accountId") Long accountId,
+                                    @Param("beforeDate") @Temporal(TemporalType.TIMESTAMP) Date beforeDate,
+                                    @Param("beforeId") Long beforeId,
+                                    @Param("limit") int limit);
+
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.sender JOIN FETCH t.receiver WHERE t.id IN ?1")
+    List<Transaction> findAllWithAccountsByIdIn(Collection<Long> ids);
 
-    @Query("SELECT t FROM Transaction t WHERE t.sender.id = ?1 OR t.receiver.id = ?1")
-    List<Transaction> findTransactionListById(Long id);
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT t FROM Transaction t ORDER BY t.id")
+    Stream<Transaction> streamAll();
 
 }
@@ -1,17 +1,16 @@
 package com.cydeo.banksimulation.service;
 
 import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.CursorPageDTO;
 import com.cydeo.banksimulation.dto.OtpDTO;
 
-import java.util.List;
-
 public interface AccountService {
 
     OtpDTO createNewAccount(AccountDTO accountDTO);
 
-    List<AccountDTO> listAllAccount();
+    CursorPageDTO<AccountDTO> listAllAccount(String cursor, int size);
 
-    List<AccountDTO> listAllActiveAccount();
+    CursorPageDTO<AccountDTO> listAllActiveAccount(String cursor, int size);
 
     AccountDTO deleteAccount(Long account);
 
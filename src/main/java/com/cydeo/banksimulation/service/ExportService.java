@@ -0,0 +1,14 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    void exportAccounts(ExportFormat format, OutputStream outputStream) throws IOException;
+
+    void exportTransactions(ExportFormat format, OutputStream outputStream) throws IOException;
+
+}
@@ -0,0 +1,17 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.ResponseWrapper;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs the action at most once per idempotency key. A repeated key gets the stored response of the
+     * first request, a key that is still being processed or reused for a different request is rejected.
+     * Requests without a key simply run the action.
+     */
+    ResponseEntity<ResponseWrapper> execute(String idempotencyKey, String operation, Object request,
+                                            Supplier<ResponseEntity<ResponseWrapper>> action);
+}
@@ -0,0 +1,23 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.util.Money;
+
+import java.util.Date;
+import java.util.List;
+
+public interface LedgerService {
+
+    void recordOpeningBalance(Account account);
+
+    void recordOpeningBalances(List<Account> accounts);
+
+    void recordTransfers(List<Transaction> transactions);
+
+    Money balanceAt(Long accountId, Date at);
+
+    int snapshotBalances();
+
+    int rebuildBalances();
+}
@@ -0,0 +1,13 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.OnboardingResultDTO;
+import com.cydeo.banksimulation.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface OnboardingService {
+
+    OnboardingResultDTO onboardAccounts(ExportFormat format, InputStream inputStream) throws IOException;
+
+}
@@ -3,8 +3,15 @@ package com.cydeo.banksimulation.service;
 import com.cydeo.banksimulation.dto.OtpDTO;
 import com.cydeo.banksimulation.entity.Account;
 
+import java.util.List;
+
 public interface OtpService {
     OtpDTO createOtpSendSms(Account account);
 
+    /**
+     * Issues one otp per account, the returned otp ids are in the order of the given accounts.
+     */
+    long[] createOtpsSendSms(List<Account> accounts);
+
     void confirmOtp(Integer otpCode, Long otpId);
 }
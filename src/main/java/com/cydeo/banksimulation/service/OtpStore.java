@@ -0,0 +1,23 @@
+package com.cydeo.banksimulation.service;
+
+public interface OtpStore {
+
+    long save(long accountId, int otpCode);
+
+    /**
+     * Saves one otp per account, the returned ids are in the order of the given accounts.
+     */
+    default long[] saveAll(long[] accountIds, int[] otpCodes) {
+        long[] otpIds = new long[accountIds.length];
+        for (int i = 0; i < accountIds.length; i++) {
+            otpIds[i] = save(accountIds[i], otpCodes[i]);
+        }
+        return otpIds;
+    }
+
+    /**
+     * Consumes the otp when the code matches and returns the id of the account it was issued for.
+     * Unknown or expired otps and wrong codes are rejected with an OtpInvalidException.
+     */
+    long verify(long otpId, int otpCode);
+}
@@ -1,7 +1,10 @@
 package com.cydeo.banksimulation.service;
 
 import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.CursorPageDTO;
 import com.cydeo.banksimulation.dto.TransactionDTO;
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
 
 import java.math.BigDecimal;
 import java.util.Date;
@@ -11,10 +14,12 @@ public interface TransactionService {
 
     TransactionDTO makeTransfer(BigDecimal amount, Date creationDate, AccountDTO sender, AccountDTO receiver, String message);
 
+    List<TransferResultDTO> makeBatchTransfer(List<TransferRequestDTO> transfers);
+
     List<TransactionDTO> findAll();
 
     List<TransactionDTO> retrieveLastTransactions();
 
-    List<TransactionDTO> findTransactionListByAccountId(Long id);
+    CursorPageDTO<TransactionDTO> findTransactionHistory(Long accountId, String cursor, int size);
 
 }
@@ -0,0 +1,17 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
+import com.cydeo.banksimulation.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+public interface TransferEngine {
+
+    Transaction transfer(BigDecimal amount, Date creationDate, Long senderId, Long receiverId, String message);
+
+    List<TransferResultDTO> transferAll(List<TransferRequestDTO> transfers, Date creationDate);
+
+}
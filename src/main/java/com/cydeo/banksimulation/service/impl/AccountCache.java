@@ -0,0 +1,95 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.event.AccountChangedEvent;
+import com.cydeo.banksimulation.event.BalancesRebuiltEvent;
+import com.cydeo.banksimulation.event.TransferCompletedEvent;
+import com.cydeo.banksimulation.exception.AccountNotFoundException;
+import com.cydeo.banksimulation.mapper.AccountMapper;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of account views keyed by id, bounded by size and expiring after a write.
+ * Entries are dropped once a transaction that changed the account commits. Transfers never read
+ * from here, the engine always locks and reads the account rows themselves.
+ * <p>
+ * The second level cache of {@link com.cydeo.banksimulation.entity.Account} sits below this one and
+ * serves the entity loads of the engines, the index and the otp store. This cache keeps the mapped views
+ * of the account endpoint, so a hit needs no session, no entity hydration and no mapping; a miss usually
+ * loads from the second level cache.
+ */
+@Component
+public class AccountCache {
+
+    private final AccountRepository accountRepository;
+    private final AccountMapper accountMapper;
+    private final Cache<Long, AccountDTO> accounts;
+
+    public AccountCache(AccountRepository accountRepository, AccountMapper accountMapper, MeterRegistry meterRegistry,
+                        @Value("${account.cache.max-size:10000}") long maxSize,
+                        @Value("${account.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.accountRepository = accountRepository;
+        this.accountMapper = accountMapper;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size tagged with cache=accounts
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "accounts");
+    }
+
+    public AccountDTO get(Long accountId) {
+        // loading happens under the key's lock, so an invalidation racing with a load waits for it and wins
+        return copyOf(accounts.get(accountId, this::load));
+    }
+
+    public void invalidate(Long accountId) {
+        accounts.invalidate(accountId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        invalidate(event.getAccountId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBalancesRebuilt(BalancesRebuiltEvent event) {
+        if (event.getCorrectedAccounts() > 0) {
+            accounts.invalidateAll();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        for (Transaction transaction : event.getTransactions()) {
+            invalidate(transaction.getSender().getId());
+            invalidate(transaction.getReceiver().getId());
+        }
+    }
+
+    private AccountDTO load(Long accountId) {
+        return accountRepository.findById(accountId)
+                .map(accountMapper::convertToDto)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+    }
+
+    // callers get their own copy, so binding or editing a dto never changes the cached entry
+    private AccountDTO copyOf(AccountDTO account) {
+        Date creationDate = account.getCreationDate() == null ? null : new Date(account.getCreationDate().getTime());
+        return new AccountDTO(account.getId(), account.getAccountType(), account.getAccountStatus(), creationDate,
+                account.getUserId(), account.getBalance(), account.getOtpVerified(), account.getPhoneNumber());
+    }
+}
@@ -0,0 +1,154 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.event.AccountChangedEvent;
+import com.cydeo.banksimulation.event.AccountsCreatedEvent;
+import com.cydeo.banksimulation.event.BalancesRebuiltEvent;
+import com.cydeo.banksimulation.event.TransferCompletedEvent;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.util.Money;
+import com.cydeo.banksimulation.util.OffHeapAccountIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Status, type, owner, verification and balance of every account in an {@link OffHeapAccountIndex}, used
+ * to reject transfers that can not succeed before the engine opens a transaction and locks rows.
+ * <p>
+ * Accounts are loaded in pages once the application is ready and written again whenever a transaction
+ * that changed them commits. An account that is not indexed yet is not pre-validated, the engine's own
+ * checks stay the authority. Balances are kept for reads only: they trail transfers that have not
+ * committed yet, so no transfer is rejected on them here.
+ */
+@Slf4j
+@Component
+public class AccountIndex {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final OffHeapAccountIndex index;
+
+    public AccountIndex(AccountRepository accountRepository, MeterRegistry meterRegistry,
+                        @Value("${account.index.expected-accounts:1048576}") int expectedAccounts) {
+        this.accountRepository = accountRepository;
+        this.index = new OffHeapAccountIndex(expectedAccounts);
+        Gauge.builder("account.index.size", index, OffHeapAccountIndex::size).register(meterRegistry);
+        Gauge.builder("account.index.memory", index, OffHeapAccountIndex::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the checks of {@link TransferRules} that need no balance against the indexed accounts. Does
+     * nothing when an id is missing or either account is not indexed.
+     */
+    public void prevalidate(Long senderId, Long receiverId, BigDecimal amount) {
+        if (senderId == null || receiverId == null) {
+            return;
+        }
+        TransferRules.checkDifferentAccounts(senderId, receiverId);
+
+        OffHeapAccountIndex.Entry sender = new OffHeapAccountIndex.Entry();
+        OffHeapAccountIndex.Entry receiver = new OffHeapAccountIndex.Entry();
+        if (!index.read(senderId, sender) || !index.read(receiverId, receiver)) {
+            return;
+        }
+        TransferRules.validateAccounts(toAccount(sender), toAccount(receiver));
+        TransferRules.checkAmount(amount);
+    }
+
+    public void put(Account account) {
+        index.put(account.getId(), account.getAccountStatus(), account.getAccountType(), account.getUserId(),
+                account.getOtpVerified(), minorUnits(account.getBalance()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread loader = new Thread(() -> load(false), "account-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        accountRepository.findById(event.getAccountId()).ifPresent(this::put);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountsCreated(AccountsCreatedEvent event) {
+        event.getAccounts().forEach(this::put);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBalancesRebuilt(BalancesRebuiltEvent event) {
+        if (event.getCorrectedAccounts() > 0) {
+            load(true);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        for (Transaction transaction : event.getTransactions()) {
+            updateBalance(transaction.getSender());
+            updateBalance(transaction.getReceiver());
+        }
+    }
+
+    // the startup load never replaces an entry, anything written meanwhile came from a later commit
+    void load(boolean replace) {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int loaded = 0;
+        List<AccountDTO> page;
+        do {
+            page = accountRepository.findPageAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (AccountDTO account : page) {
+                if (replace) {
+                    index.put(account.getId(), account.getAccountStatus(), account.getAccountType(),
+                            account.getUserId(), account.getOtpVerified(), minorUnits(account.getBalance()));
+                } else {
+                    index.putIfAbsent(account.getId(), account.getAccountStatus(), account.getAccountType(),
+                            account.getUserId(), account.getOtpVerified(), minorUnits(account.getBalance()));
+                }
+                afterId = account.getId();
+            }
+            loaded += page.size();
+        } while (page.size() == PAGE_SIZE);
+        log.info("Account index loaded {} accounts in {} ms, {} bytes off heap", loaded,
+                System.currentTimeMillis() - start, index.memoryBytes());
+    }
+
+    private void updateBalance(Account account) {
+        if (!index.updateBalance(account.getId(), minorUnits(account.getBalance()))) {
+            put(account);
+        }
+    }
+
+    private static Account toAccount(OffHeapAccountIndex.Entry entry) {
+        Account account = new Account();
+        account.setId(entry.getAccountId());
+        account.setAccountStatus(entry.getAccountStatus());
+        account.setAccountType(entry.getAccountType());
+        account.setUserId(entry.getUserId());
+        account.setOtpVerified(entry.getOtpVerified());
+        return account;
+    }
+
+    private static long minorUnits(BigDecimal balance) {
+        return balance == null ? 0 : Money.of(balance).getMinorUnits();
+    }
+}
@@ -1,45 +1,65 @@
 package com.cydeo.banksimulation.service.impl;
 
 import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.CursorPageDTO;
 import com.cydeo.banksimulation.dto.OtpDTO;
 import com.cydeo.banksimulation.entity.Account;
 import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.event.AccountChangedEvent;
 import com.cydeo.banksimulation.exception.AccountNotFoundException;
 import com.cydeo.banksimulation.exception.AccountStatusInvalidException;
+import com.cydeo.banksimulation.exception.BadRequestException;
 import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
 import com.cydeo.banksimulation.mapper.AccountMapper;
 import com.cydeo.banksimulation.repository.AccountRepository;
 import com.cydeo.banksimulation.service.AccountService;
+import com.cydeo.banksimulation.service.LedgerService;
 import com.cydeo.banksimulation.service.OtpService;
+import com.cydeo.banksimulation.util.Money;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class AccountServiceImpl implements AccountService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final AccountRepository accountRepository;
     private final AccountMapper accountMapper;
     private final OtpService otpService;
+    private final AccountCache accountCache;
+    private final LedgerService ledgerService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AccountServiceImpl(AccountRepository accountRepository,
                               AccountMapper accountMapper,
-                              OtpService otpService) {
+                              OtpService otpService,
+                              AccountCache accountCache,
+                              LedgerService ledgerService,
+                              ApplicationEventPublisher eventPublisher) {
         this.accountRepository = accountRepository;
         this.accountMapper = accountMapper;
         this.otpService = otpService;
+        this.accountCache = accountCache;
+        this.ledgerService = ledgerService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
-    public List<AccountDTO> listAllAccount() {
-        List<Account> accountList = accountRepository.findAll();
-        return accountList.stream().map(accountMapper::convertToDto).collect(Collectors.toList());
+    public CursorPageDTO<AccountDTO> listAllAccount(String cursor, int size) {
+        int pageSize = pageSize(size);
+        List<AccountDTO> accountList = accountRepository.findPageAfter(parseCursor(cursor), PageRequest.of(0, pageSize));
+        return toPage(accountList, pageSize);
     }
 
     @Override
+    @Transactional
     public OtpDTO createNewAccount(AccountDTO accountDTO){
         if (accountDTO.getBalance() == null ||
                 accountDTO.getBalance().compareTo(BigDecimal.ZERO) <= 0){
@@ -50,10 +70,18 @@ public class AccountServiceImpl implements AccountService {
             throw new AccountStatusInvalidException("Account status can not be Deleted");
         }
 
+        try {
+            Money.of(accountDTO.getBalance());
+        } catch (ArithmeticException e) {
+            throw new BadRequestException("Initial balance can not have more than 2 decimal places");
+        }
+
         accountDTO.setCreationDate(new Date());
         accountDTO.setAccountStatus(AccountStatus.ACTIVE);
         Account account = accountMapper.convertToEntity(accountDTO);
         account = accountRepository.save(account);
+        ledgerService.recordOpeningBalance(account);
+        eventPublisher.publishEvent(new AccountChangedEvent(account.getId()));
         return otpService.createOtpSendSms(account);
     }
 
@@ -65,21 +93,48 @@ public class AccountServiceImpl implements AccountService {
             throw new AccountNotFoundException("Account not found");
         }
         account.setAccountStatus(AccountStatus.DELETED);
-        return accountMapper.convertToDto(accountRepository.save(account));
+        AccountDTO deleted = accountMapper.convertToDto(accountRepository.save(account));
+        eventPublisher.publishEvent(new AccountChangedEvent(accountId));
+        return deleted;
     }
 
 
     @Override
     public AccountDTO retrieveById(Long account) {
-        return accountMapper.convertToDto(accountRepository.getById(account));
+        return accountCache.get(account);
     }
 
     @Override
-    public List<AccountDTO> listAllActiveAccount() {
-        List<Account> accountList = accountRepository.findAll();
-        return accountList.stream().map(accountMapper::convertToDto).
-                filter(accountDTO -> accountDTO.getAccountStatus()
-                        .equals(AccountStatus.ACTIVE)).collect(Collectors.toList());
+    public CursorPageDTO<AccountDTO> listAllActiveAccount(String cursor, int size) {
+        int pageSize = pageSize(size);
+        List<AccountDTO> accountList = accountRepository.findPageByAccountStatusAfter(AccountStatus.ACTIVE,
+                parseCursor(cursor), PageRequest.of(0, pageSize));
+        return toPage(accountList, pageSize);
+    }
+
+    private int pageSize(int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Page size needs to be bigger than Zero");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private Long parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cursor is not valid");
+        }
+    }
+
+    private CursorPageDTO<AccountDTO> toPage(List<AccountDTO> accountList, int pageSize) {
+        String nextCursor = accountList.size() < pageSize
+                ? null
+                : String.valueOf(accountList.get(accountList.size() - 1).getId());
+        return new CursorPageDTO<>(accountList, nextCursor);
     }
 
 }
@@ -0,0 +1,218 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.ExportFormat;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.ExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams whole tables straight to the response. Rows come from a server side cursor and the
+ * persistence context is cleared every {@link #CLEAR_INTERVAL} rows, so heap use stays flat no matter
+ * how many rows are exported.
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private static final String ACCOUNT_CSV_HEADER =
+            "id,accountType,accountStatus,creationDate,userId,balance,otpVerified,phoneNumber";
+    private static final String TRANSACTION_CSV_HEADER = "id,senderId,receiverId,amount,message,creationDate";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                             ObjectMapper objectMapper) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAccounts(ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try (Stream<Account> accounts = accountRepository.streamAll()) {
+            if (format == ExportFormat.CSV) {
+                writer.write(ACCOUNT_CSV_HEADER);
+                writer.write('\n');
+                long count = 0;
+                for (Iterator<Account> iterator = accounts.iterator(); iterator.hasNext(); ) {
+                    writeCsv(writer, iterator.next());
+                    clearPeriodically(++count);
+                }
+            } else {
+                JsonGenerator generator = createGenerator(writer);
+                long count = 0;
+                for (Iterator<Account> iterator = accounts.iterator(); iterator.hasNext(); ) {
+                    writeJson(generator, iterator.next());
+                    clearPeriodically(++count);
+                }
+                finish(generator, count);
+            }
+        }
+        writer.flush();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTransactions(ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try (Stream<Transaction> transactions = transactionRepository.streamAll()) {
+            if (format == ExportFormat.CSV) {
+                writer.write(TRANSACTION_CSV_HEADER);
+                writer.write('\n');
+                long count = 0;
+                for (Iterator<Transaction> iterator = transactions.iterator(); iterator.hasNext(); ) {
+                    writeCsv(writer, iterator.next());
+                    clearPeriodically(++count);
+                }
+            } else {
+                JsonGenerator generator = createGenerator(writer);
+                long count = 0;
+                for (Iterator<Transaction> iterator = transactions.iterator(); iterator.hasNext(); ) {
+                    writeJson(generator, iterator.next());
+                    clearPeriodically(++count);
+                }
+                finish(generator, count);
+            }
+        }
+        writer.flush();
+    }
+
+    private void clearPeriodically(long count) {
+        if (count % CLEAR_INTERVAL == 0) {
+            entityManager.clear();
+        }
+    }
+
+    private JsonGenerator createGenerator(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        return generator;
+    }
+
+    private void finish(JsonGenerator generator, long count) throws IOException {
+        if (count > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeJson(JsonGenerator generator, Account account) throws IOException {
+        generator.writeStartObject();
+        writeNumberField(generator, "id", account.getId());
+        generator.writeStringField("accountType", name(account.getAccountType()));
+        generator.writeStringField("accountStatus", name(account.getAccountStatus()));
+        generator.writeStringField("creationDate", format(account.getCreationDate()));
+        writeNumberField(generator, "userId", account.getUserId());
+        generator.writeNumberField("balance", account.getBalance());
+        if (account.getOtpVerified() == null) {
+            generator.writeNullField("otpVerified");
+        } else {
+            generator.writeBooleanField("otpVerified", account.getOtpVerified());
+        }
+        generator.writeStringField("phoneNumber", account.getPhoneNumber());
+        generator.writeEndObject();
+    }
+
+    private void writeJson(JsonGenerator generator, Transaction transaction) throws IOException {
+        generator.writeStartObject();
+        writeNumberField(generator, "id", transaction.getId());
+        writeNumberField(generator, "senderId", accountId(transaction.getSender()));
+        writeNumberField(generator, "receiverId", accountId(transaction.getReceiver()));
+        generator.writeNumberField("amount", transaction.getAmount());
+        generator.writeStringField("message", transaction.getMessage());
+        generator.writeStringField("creationDate", format(transaction.getCreationDate()));
+        generator.writeEndObject();
+    }
+
+    private void writeCsv(Writer writer, Account account) throws IOException {
+        writer.write(csv(account.getId()));
+        writer.write(',');
+        writer.write(csv(name(account.getAccountType())));
+        writer.write(',');
+        writer.write(csv(name(account.getAccountStatus())));
+        writer.write(',');
+        writer.write(csv(format(account.getCreationDate())));
+        writer.write(',');
+        writer.write(csv(account.getUserId()));
+        writer.write(',');
+        writer.write(csv(account.getBalance()));
+        writer.write(',');
+        writer.write(csv(account.getOtpVerified()));
+        writer.write(',');
+        writer.write(csv(account.getPhoneNumber()));
+        writer.write('\n');
+    }
+
+    private void writeCsv(Writer writer, Transaction transaction) throws IOException {
+        writer.write(csv(transaction.getId()));
+        writer.write(',');
+        writer.write(csv(accountId(transaction.getSender())));
+        writer.write(',');
+        writer.write(csv(accountId(transaction.getReceiver())));
+        writer.write(',');
+        writer.write(csv(transaction.getAmount()));
+        writer.write(',');
+        writer.write(csv(transaction.getMessage()));
+        writer.write(',');
+        writer.write(csv(format(transaction.getCreationDate())));
+        writer.write('\n');
+    }
+
+    private void writeNumberField(JsonGenerator generator, String name, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    private Long accountId(Account account) {
+        return account == null ? null : account.getId();
+    }
+
+    private String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    private String format(Date date) {
+        return date == null ? null : Instant.ofEpochMilli(date.getTime()).toString();
+    }
+
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.ResponseWrapper;
+import com.cydeo.banksimulation.entity.IdempotencyRecord;
+import com.cydeo.banksimulation.exception.BadRequestException;
+import com.cydeo.banksimulation.exception.IdempotencyConflictException;
+import com.cydeo.banksimulation.repository.IdempotencyRecordRepository;
+import com.cydeo.banksimulation.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keys live in two places. A Caffeine map answers repeats seen by this instance without touching the
+ * database and marks keys that are still in flight. The idempotency_keys table is the durable record: the
+ * key is claimed in a short transaction of its own, whose unique index makes a concurrent claim of the same
+ * key on another instance fail, and the response is stored in a second one once the request has run. The
+ * request itself runs outside both, in its own transactions, so the transfer engine can still retry it.
+ * <p>
+ * A request that fails releases its key. When the response can not be stored the key stays claimed without
+ * a response until it expires, other instances report it as still being processed instead of running the
+ * request again.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 200;
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, StoredResponse> responses;
+    private final long ttlMillis;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                  @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                                  @Value("${idempotency.cache.max-size:100000}") long maxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlHours, TimeUnit.HOURS)
+                .build();
+    }
+
+    @Override
+    public ResponseEntity<ResponseWrapper> execute(String idempotencyKey, String operation, Object request,
+                                                   Supplier<ResponseEntity<ResponseWrapper>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key can not be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = operation + ":" + idempotencyKey;
+        String requestHash = hash(request);
+        StoredResponse inFlight = new StoredResponse(requestHash, null, null);
+        StoredResponse existing = responses.asMap().putIfAbsent(key, inFlight);
+        if (existing != null) {
+            return replay(existing, requestHash);
+        }
+
+        IdempotencyRecord claim;
+        try {
+            claim = transactionTemplate.execute(status -> claim(key, requestHash));
+        } catch (DuplicateKeyException e) {
+            responses.asMap().remove(key, inFlight);
+            StoredResponse stored = e.stored != null ? e.stored : idempotencyRecordRepository.findByIdempotencyKey(key)
+                    .map(this::fromRecord)
+                    .orElseThrow(() -> new IdempotencyConflictException("A request with this Idempotency-Key is still being processed"));
+            if (stored.body != null) {
+                responses.put(key, stored);
+            }
+            return replay(stored, requestHash);
+        } catch (RuntimeException e) {
+            responses.asMap().remove(key, inFlight);
+            throw e;
+        }
+
+        ResponseEntity<ResponseWrapper> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // nothing was committed, the client may retry with the same key
+            release(claim);
+            responses.asMap().remove(key, inFlight);
+            throw e;
+        }
+
+        try {
+            claim.setResponseStatus(response.getStatusCodeValue());
+            claim.setResponseBody(toJson(response.getBody()));
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.save(claim));
+        } catch (RuntimeException e) {
+            log.warn("response for idempotency key {} couldn't be stored: {}", key, e.getMessage());
+        }
+        if (claim.getResponseBody() != null) {
+            responses.put(key, fromRecord(claim));
+        } else {
+            responses.asMap().remove(key, inFlight);
+        }
+        return response;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-millis:3600000}")
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyRecordRepository.deleteExpired(new Date());
+        if (deleted > 0) {
+            log.info("{} expired idempotency keys deleted", deleted);
+        }
+    }
+
+    // a live record wins over the claim, an expired one is replaced
+    private IdempotencyRecord claim(String key, String requestHash) {
+        Date now = new Date();
+        Optional<IdempotencyRecord> previous = idempotencyRecordRepository.findByIdempotencyKey(key);
+        if (previous.isPresent()) {
+            if (previous.get().getExpiresAt().after(now)) {
+                throw new DuplicateKeyException(fromRecord(previous.get()));
+            }
+            idempotencyRecordRepository.delete(previous.get());
+            idempotencyRecordRepository.flush();
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(key);
+        record.setRequestHash(requestHash);
+        record.setCreatedAt(now);
+        record.setExpiresAt(new Date(now.getTime() + ttlMillis));
+        try {
+            return idempotencyRecordRepository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateKeyException(null);
+        }
+    }
+
+    private void release(IdempotencyRecord claim) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.delete(claim));
+        } catch (RuntimeException e) {
+            log.warn("idempotency key {} couldn't be released: {}", claim.getIdempotencyKey(), e.getMessage());
+        }
+    }
+
+    private ResponseEntity<ResponseWrapper> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency-Key was already used for a different request");
+        }
+        if (stored.body == null) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+        }
+        try {
+            return ResponseEntity.status(stored.status)
+                    .header(REPLAYED_HEADER, "true")
+                    .body(objectMapper.readValue(stored.body, ResponseWrapper.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response could not be read", e);
+        }
+    }
+
+    private StoredResponse fromRecord(IdempotencyRecord record) {
+        return new StoredResponse(record.getRequestHash(), record.getResponseStatus(), record.getResponseBody());
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request could not be hashed", e);
+        }
+    }
+
+    private static final class StoredResponse {
+
+        private final String requestHash;
+        private final Integer status;
+        // null while the first request is still running
+        private final String body;
+
+        StoredResponse(String requestHash, Integer status, String body) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class DuplicateKeyException extends RuntimeException {
+
+        // the record that holds the key, null when another instance claimed it concurrently
+        private final StoredResponse stored;
+
+        DuplicateKeyException(StoredResponse stored) {
+            super(null, null, false, false);
+            this.stored = stored;
+        }
+    }
+}
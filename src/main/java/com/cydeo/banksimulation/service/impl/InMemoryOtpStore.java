@@ -0,0 +1,248 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.exception.OtpInvalidException;
+import com.cydeo.banksimulation.service.OtpStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps otps on the heap in a fixed number of segments. Each segment is an open addressing table over
+ * primitive arrays, so an otp costs a few array slots instead of an entity and a map entry.
+ * <p>
+ * Expiry is handled by a timer wheel per segment: every otp is registered in the bucket of the tick it
+ * expires in, and whenever a segment is touched it drains the buckets whose tick has passed. Expired otps
+ * therefore disappear without a cleanup job. When a segment is full the bucket that expires next is
+ * drained early, which keeps the memory bounded by {@code otp.store.max-entries}.
+ * <p>
+ * The otps live in a single JVM; use {@code otp.store=JPA} when several instances serve the same users.
+ */
+@ConditionalOnProperty(value = "otp.store", havingValue = "MEMORY", matchIfMissing = true)
+@Component
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final int SEGMENTS = 16;
+    private static final int WHEEL_TICKS = 60;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public InMemoryOtpStore(@Value("${otp.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${otp.store.max-entries:100000}") int maxEntries) {
+        this(TimeUnit.SECONDS.toMillis(ttlSeconds), maxEntries, System::currentTimeMillis);
+    }
+
+    public InMemoryOtpStore(long ttlMillis, int maxEntries, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.tickMillis = Math.max(1, ttlMillis / WHEEL_TICKS);
+        this.clock = clock;
+        // every otp expires at most ttl + 1 ticks ahead, two spare buckets keep rounds from overlapping
+        int wheelLength = (int) ((ttlMillis + tickMillis - 1) / tickMillis) + 2;
+        int segmentEntries = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        long currentTick = clock.getAsLong() / tickMillis;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentEntries, wheelLength, currentTick);
+        }
+    }
+
+    @Override
+    public long save(long accountId, int otpCode) {
+        long otpId = sequence.incrementAndGet();
+        long now = clock.getAsLong();
+        long expiresAt = now + ttlMillis;
+        long expireTick = (expiresAt + tickMillis - 1) / tickMillis;
+        segmentFor(otpId).put(otpId, accountId, otpCode, expiresAt, expireTick, now / tickMillis);
+        return otpId;
+    }
+
+    @Override
+    public long verify(long otpId, int otpCode) {
+        long now = clock.getAsLong();
+        return segmentFor(otpId).consume(otpId, otpCode, now, now / tickMillis);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long otpId) {
+        return segments[(int) (mix(otpId) >>> 60) & (SEGMENTS - 1)];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Segment {
+
+        private final long[] keys;
+        private final long[] accountIds;
+        private final int[] codes;
+        private final long[] expiresAt;
+        private final int mask;
+        private final int maxSize;
+        private int size;
+
+        private final long[][] wheel;
+        private final int[] wheelSizes;
+        private long currentTick;
+
+        Segment(int maxSize, int wheelLength, long currentTick) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxSize * 2 - 1)) << 1;
+            this.keys = new long[capacity];
+            this.accountIds = new long[capacity];
+            this.codes = new int[capacity];
+            this.expiresAt = new long[capacity];
+            this.mask = capacity - 1;
+            this.maxSize = maxSize;
+            this.wheel = new long[wheelLength][];
+            this.wheelSizes = new int[wheelLength];
+            this.currentTick = currentTick;
+        }
+
+        synchronized void put(long key, long accountId, int code, long expires, long expireTick, long nowTick) {
+            advance(nowTick);
+            while (size >= maxSize) {
+                evictNextBucket();
+            }
+            int slot = slot(key);
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            accountIds[slot] = accountId;
+            codes[slot] = code;
+            expiresAt[slot] = expires;
+            size++;
+            schedule(key, (int) (expireTick % wheel.length));
+        }
+
+        synchronized long consume(long key, int code, long now, long nowTick) {
+            advance(nowTick);
+            int slot = indexOf(key);
+            if (slot < 0 || expiresAt[slot] <= now) {
+                throw new OtpInvalidException("otp not found");
+            }
+            if (codes[slot] != code) {
+                throw new OtpInvalidException("Otpcode does not match");
+            }
+            long accountId = accountIds[slot];
+            removeAt(slot);
+            return accountId;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void advance(long nowTick) {
+            if (nowTick - currentTick > wheel.length) {
+                currentTick = nowTick - wheel.length;
+            }
+            while (currentTick < nowTick) {
+                currentTick++;
+                drain((int) (currentTick % wheel.length));
+            }
+        }
+
+        private void evictNextBucket() {
+            for (int i = 1; i <= wheel.length; i++) {
+                int bucket = (int) ((currentTick + i) % wheel.length);
+                if (wheelSizes[bucket] > 0) {
+                    drain(bucket);
+                    return;
+                }
+            }
+        }
+
+        private void drain(int bucket) {
+            long[] expiring = wheel[bucket];
+            for (int i = 0; i < wheelSizes[bucket]; i++) {
+                int slot = indexOf(expiring[i]);
+                if (slot >= 0) {
+                    removeAt(slot);
+                }
+            }
+            wheelSizes[bucket] = 0;
+        }
+
+        private void schedule(long key, int bucket) {
+            long[] expiring = wheel[bucket];
+            int count = wheelSizes[bucket];
+            if (expiring == null) {
+                expiring = wheel[bucket] = new long[16];
+            } else if (count == expiring.length) {
+                // otps confirmed before they expire are still listed here, drop them before growing
+                count = compact(expiring, count);
+                if (count == expiring.length) {
+                    expiring = wheel[bucket] = Arrays.copyOf(expiring, count * 2);
+                }
+            }
+            expiring[count] = key;
+            wheelSizes[bucket] = count + 1;
+        }
+
+        private int compact(long[] expiring, int count) {
+            int live = 0;
+            for (int i = 0; i < count; i++) {
+                if (indexOf(expiring[i]) >= 0) {
+                    expiring[live++] = expiring[i];
+                }
+            }
+            return live;
+        }
+
+        private int slot(long key) {
+            return (int) mix(key) & mask;
+        }
+
+        private int indexOf(long key) {
+            int slot = slot(key);
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        // backward shift deletion keeps probe chains intact without tombstones
+        private void removeAt(int slot) {
+            int gap = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                long key = keys[next];
+                if (key == 0) {
+                    break;
+                }
+                int home = slot(key);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = key;
+                    accountIds[gap] = accountIds[next];
+                    codes[gap] = codes[next];
+                    expiresAt[gap] = expiresAt[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = 0;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.JournalCheckpoint;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.event.TransferCompletedEvent;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.JournalCheckpointRepository;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.LedgerService;
+import com.cydeo.banksimulation.util.Money;
+import com.cydeo.banksimulation.util.TransferJournal;
+import com.cydeo.banksimulation.util.TransferJournal.JournalRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies journaled transfers to the accounts, transactions and ledger tables. Each batch is written in one
+ * database transaction together with the checkpoint of the last applied record, so after a crash the
+ * projection resumes exactly after the last committed batch. Records written before a restart are
+ * replayed before the application accepts new transfers.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "transfer.journal.enabled", havingValue = "true")
+public class JournalProjector {
+
+    @Value("${transfer.journal.projector.batch-size:500}")
+    private int batchSize = 500;
+
+    private final TransferJournal transferJournal;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerService ledgerService;
+    private final JournalCheckpointRepository journalCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private long projectedSequence;
+
+    public JournalProjector(TransferJournal transferJournal, AccountRepository accountRepository,
+                            TransactionRepository transactionRepository, LedgerService ledgerService,
+                            JournalCheckpointRepository journalCheckpointRepository,
+                            TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher) {
+        this.transferJournal = transferJournal;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerService = ledgerService;
+        this.journalCheckpointRepository = journalCheckpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.projectedSequence = journalCheckpointRepository.findById(JournalCheckpoint.TRANSFER_JOURNAL)
+                .map(JournalCheckpoint::getProjectedSequence)
+                .orElse(0L);
+    }
+
+    @PostConstruct
+    public void replay() {
+        int replayed = project();
+        if (replayed > 0) {
+            log.info("{} journaled transfers replayed, journal is projected up to {}", replayed, projectedSequence);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.journal.projector.interval-millis:50}")
+    public synchronized int project() {
+        int projected = 0;
+        while (true) {
+            List<JournalRecord> batch = transferJournal.read(projectedSequence, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+            projectedSequence = batch.get(batch.size() - 1).getSequence();
+            projected += batch.size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (projected > 0) {
+            try {
+                transferJournal.deleteUpTo(projectedSequence);
+            } catch (IOException e) {
+                log.warn("Projected journal segments could not be deleted", e);
+            }
+        }
+        return projected;
+    }
+
+    public synchronized long getProjectedSequence() {
+        return projectedSequence;
+    }
+
+    private void apply(List<JournalRecord> batch) {
+        Set<Long> accountIds = new TreeSet<>();
+        for (JournalRecord record : batch) {
+            accountIds.add(record.getSenderId());
+            accountIds.add(record.getReceiverId());
+        }
+        Map<Long, Account> accounts = accountRepository.findAllByIdForUpdate(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (JournalRecord record : batch) {
+            Account sender = findAccount(accounts, record.getSenderId(), record);
+            Account receiver = findAccount(accounts, record.getReceiverId(), record);
+            Money amount = Money.ofMinor(record.getAmountMinor());
+            sender.setBalance(Money.of(sender.getBalance()).minus(amount).toBigDecimal());
+            receiver.setBalance(Money.of(receiver.getBalance()).plus(amount).toBigDecimal());
+
+            Transaction transaction = new Transaction();
+            transaction.setSender(sender);
+            transaction.setReceiver(receiver);
+            transaction.setAmount(amount.toBigDecimal());
+            transaction.setMessage(record.getMessage());
+            transaction.setCreationDate(new Date(record.getCreatedAt()));
+            transactions.add(transaction);
+        }
+
+        transactionRepository.saveAll(transactions);
+        ledgerService.recordTransfers(transactions);
+        journalCheckpointRepository.save(new JournalCheckpoint(JournalCheckpoint.TRANSFER_JOURNAL,
+                batch.get(batch.size() - 1).getSequence()));
+        eventPublisher.publishEvent(new TransferCompletedEvent(transactions));
+    }
+
+    private Account findAccount(Map<Long, Account> accounts, long accountId, JournalRecord record) {
+        Account account = accounts.get(accountId);
+        if (account == null) {
+            // the transfer was accepted against this account, skipping it would lose money
+            throw new IllegalStateException("Account " + accountId + " of journal record " + record.getSequence()
+                    + " does not exist, projection is stopped");
+        }
+        return account;
+    }
+}
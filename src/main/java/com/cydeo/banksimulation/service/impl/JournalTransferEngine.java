@@ -0,0 +1,209 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.event.AccountChangedEvent;
+import com.cydeo.banksimulation.exception.AccountNotFoundException;
+import com.cydeo.banksimulation.exception.BadRequestException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.TransferEngine;
+import com.cydeo.banksimulation.util.Money;
+import com.cydeo.banksimulation.util.TransferJournal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accepts transfers against balances held in memory and makes them durable by appending them to the
+ * {@link TransferJournal} instead of writing Postgres. A transfer returns once its record is synced;
+ * {@link JournalProjector} writes the accounts, transactions and ledger rows shortly after.
+ * <p>
+ * An account's balance is loaded from the database the first time it takes part in a transfer and is
+ * kept here from then on, so it always includes journaled transfers that are not projected yet. Both
+ * accounts are locked in ascending id order while the transfer is validated, appended and applied, which
+ * keeps the journal order consistent with the balances every transfer was checked against.
+ * <p>
+ * The journal is a local file, so only one instance may run in this mode. Transaction ids are assigned by
+ * the projector, batch results therefore carry no transaction id.
+ */
+@Primary
+@ConditionalOnExpression("${transfer.journal.enabled:false} and '${transfer.journal.engine:LOCKING}' == 'LOCKING'")
+@Service
+public class JournalTransferEngine implements TransferEngine {
+
+    private final TransferJournal transferJournal;
+    private final AccountRepository accountRepository;
+    private final TransferMetrics transferMetrics;
+    private final ConcurrentMap<Long, AccountState> accounts = new ConcurrentHashMap<>();
+
+    // the projector is a dependency so that the journal is replayed before the first transfer is accepted
+    public JournalTransferEngine(TransferJournal transferJournal, JournalProjector journalProjector,
+                                 AccountRepository accountRepository, TransferMetrics transferMetrics) {
+        this.transferJournal = transferJournal;
+        this.accountRepository = accountRepository;
+        this.transferMetrics = transferMetrics;
+    }
+
+    @Override
+    public Transaction transfer(BigDecimal amount, Date creationDate, Long senderId, Long receiverId, String message) {
+        Accepted accepted = accept(amount, creationDate, senderId, receiverId, message);
+        long persistStart = System.nanoTime();
+        transferJournal.awaitDurable(accepted.sequence);
+        transferMetrics.persistCompleted(persistStart);
+        return accepted.transaction;
+    }
+
+    @Override
+    public List<TransferResultDTO> transferAll(List<TransferRequestDTO> transfers, Date creationDate) {
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        List<TransferResultDTO> accepted = new ArrayList<>(transfers.size());
+        long lastSequence = 0;
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO request = transfers.get(i);
+            TransferResultDTO result = new TransferResultDTO(i, false, null, null);
+            results.add(result);
+            try {
+                if (request.getSenderId() == null || request.getReceiverId() == null) {
+                    throw new BadRequestException("Sender or receiver can not be null");
+                }
+                lastSequence = accept(request.getAmount(), creationDate, request.getSenderId(),
+                        request.getReceiverId(), request.getMessage()).sequence;
+                accepted.add(result);
+            } catch (RuntimeException e) {
+                transferMetrics.rejected(e);
+                result.setMessage(e.getMessage());
+            }
+        }
+
+        long persistStart = System.nanoTime();
+        transferJournal.awaitDurable(lastSequence);
+        transferMetrics.batchPersistCompleted(persistStart);
+        for (TransferResultDTO result : accepted) {
+            result.setSuccess(true);
+        }
+        return results;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        AccountState state = accounts.get(event.getAccountId());
+        if (state == null) {
+            return;
+        }
+        Account account = accountRepository.findById(event.getAccountId()).orElse(null);
+        state.lock.lock();
+        try {
+            if (account == null) {
+                accounts.remove(event.getAccountId());
+            } else {
+                // status and verification change outside of transfers, the balance here stays authoritative
+                state.account = account;
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private Accepted accept(BigDecimal amount, Date creationDate, Long senderId, Long receiverId, String message) {
+        long start = System.nanoTime();
+        TransferRules.checkDifferentAccounts(senderId, receiverId);
+
+        AccountState first = state(Math.min(senderId, receiverId));
+        AccountState second = state(Math.max(senderId, receiverId));
+        AccountState sender = first.id == senderId ? first : second;
+        AccountState receiver = first.id == senderId ? second : first;
+
+        first.lock.lock();
+        second.lock.lock();
+        try {
+            long phaseStart = transferMetrics.lockCompleted(start);
+            TransferRules.validateAccounts(sender.account, receiver.account);
+            phaseStart = transferMetrics.validationCompleted(phaseStart);
+
+            Money transferAmount = TransferRules.checkAmount(amount);
+            Money senderBalance = TransferRules.debit(Money.ofMinor(sender.balanceMinor), transferAmount);
+            Money receiverBalance = Money.ofMinor(receiver.balanceMinor).plus(transferAmount);
+
+            long sequence = transferJournal.append(senderId, receiverId, transferAmount.getMinorUnits(),
+                    creationDate.getTime(), message);
+            sender.balanceMinor = senderBalance.getMinorUnits();
+            receiver.balanceMinor = receiverBalance.getMinorUnits();
+            transferMetrics.balanceUpdateCompleted(phaseStart);
+
+            Transaction transaction = new Transaction();
+            transaction.setSender(copyOf(sender.account, senderBalance));
+            transaction.setReceiver(copyOf(receiver.account, receiverBalance));
+            transaction.setAmount(transferAmount.toBigDecimal());
+            transaction.setMessage(message);
+            transaction.setCreationDate(creationDate);
+            return new Accepted(sequence, transaction);
+        } finally {
+            second.lock.unlock();
+            first.lock.unlock();
+        }
+    }
+
+    private AccountState state(long accountId) {
+        AccountState state = accounts.get(accountId);
+        if (state != null) {
+            return state;
+        }
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+        AccountState loaded = new AccountState(accountId, account, Money.of(account.getBalance()).getMinorUnits());
+        state = accounts.putIfAbsent(accountId, loaded);
+        return state != null ? state : loaded;
+    }
+
+    static Account copyOf(Account account, Money balance) {
+        Account copy = new Account();
+        copy.setId(account.getId());
+        copy.setAccountType(account.getAccountType());
+        copy.setAccountStatus(account.getAccountStatus());
+        copy.setCreationDate(account.getCreationDate());
+        copy.setUserId(account.getUserId());
+        copy.setBalance(balance.toBigDecimal());
+        copy.setOtpVerified(account.getOtpVerified());
+        copy.setPhoneNumber(account.getPhoneNumber());
+        return copy;
+    }
+
+    private static final class AccountState {
+
+        private final long id;
+        private final ReentrantLock lock = new ReentrantLock();
+        // detached copy used for validation only, its balance is not maintained
+        private volatile Account account;
+        private long balanceMinor;
+
+        AccountState(long id, Account account, long balanceMinor) {
+            this.id = id;
+            this.account = account;
+            this.balanceMinor = balanceMinor;
+        }
+    }
+
+    private static final class Accepted {
+
+        private final long sequence;
+        private final Transaction transaction;
+
+        Accepted(long sequence, Transaction transaction) {
+            this.sequence = sequence;
+            this.transaction = transaction;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.entity.Otp;
+import com.cydeo.banksimulation.enums.VerificationStatus;
+import com.cydeo.banksimulation.exception.OtpInvalidException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.OtpRepository;
+import com.cydeo.banksimulation.service.OtpStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps otps in the otps table. Slower than the in-memory store, but the otps are shared by every
+ * instance of the application and survive restarts.
+ */
+@ConditionalOnProperty(value = "otp.store", havingValue = "JPA")
+@Component
+public class JpaOtpStore implements OtpStore {
+
+    @Value("${otp.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    private final OtpRepository otpRepository;
+    private final AccountRepository accountRepository;
+
+    public JpaOtpStore(OtpRepository otpRepository, AccountRepository accountRepository) {
+        this.otpRepository = otpRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    @Transactional
+    public long save(long accountId, int otpCode) {
+        Otp otp = new Otp();
+        otp.setAccount(accountRepository.getById(accountId));
+        otp.setOtpCode(otpCode);
+        otp.setVerificationStatus(VerificationStatus.PENDING);
+        otp.setExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds)));
+        return otpRepository.save(otp).getId();
+    }
+
+    @Override
+    @Transactional
+    public long[] saveAll(long[] accountIds, int[] otpCodes) {
+        Date expiresAt = new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        List<Otp> otps = new ArrayList<>(accountIds.length);
+        for (int i = 0; i < accountIds.length; i++) {
+            Otp otp = new Otp();
+            otp.setAccount(accountRepository.getById(accountIds[i]));
+            otp.setOtpCode(otpCodes[i]);
+            otp.setVerificationStatus(VerificationStatus.PENDING);
+            otp.setExpiresAt(expiresAt);
+            otps.add(otp);
+        }
+        List<Otp> saved = otpRepository.saveAll(otps);
+        long[] otpIds = new long[saved.size()];
+        for (int i = 0; i < otpIds.length; i++) {
+            otpIds[i] = saved.get(i).getId();
+        }
+        return otpIds;
+    }
+
+    @Override
+    @Transactional
+    public long verify(long otpId, int otpCode) {
+        Otp otp = otpRepository.findById(otpId)
+                .filter(found -> found.getVerificationStatus() == VerificationStatus.PENDING)
+                .filter(found -> found.getExpiresAt().after(new Date()))
+                .orElseThrow(() -> new OtpInvalidException("otp not found"));
+        if (otp.getOtpCode() != otpCode) {
+            throw new OtpInvalidException("Otpcode does not match");
+        }
+        otp.setVerificationStatus(VerificationStatus.APPROVED);
+        // reading the id of the lazy account proxy does not load the account row
+        return otp.getAccount().getId();
+    }
+}
@@ -0,0 +1,134 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.BalanceSnapshot;
+import com.cydeo.banksimulation.entity.LedgerEntry;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.EntryType;
+import com.cydeo.banksimulation.event.BalancesRebuiltEvent;
+import com.cydeo.banksimulation.exception.AccountNotFoundException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.BalanceSnapshotRepository;
+import com.cydeo.banksimulation.repository.LedgerEntryRepository;
+import com.cydeo.banksimulation.service.LedgerService;
+import com.cydeo.banksimulation.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Append-only double-entry ledger. Every transfer writes a debit for the sender and a credit for the
+ * receiver in the transfer's own transaction, and Account.balance is the materialized sum of an account's
+ * entries. Entries are numbered per account under the account row lock, so committed entries of an
+ * account always form a gap free prefix; snapshots record the balance up to a sequence and later reads
+ * only have to add the entries after it.
+ */
+@Slf4j
+@Service
+public class LedgerServiceImpl implements LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final AccountRepository accountRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LedgerServiceImpl(LedgerEntryRepository ledgerEntryRepository,
+                             BalanceSnapshotRepository balanceSnapshotRepository,
+                             AccountRepository accountRepository,
+                             ApplicationEventPublisher eventPublisher) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.accountRepository = accountRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void recordOpeningBalance(Account account) {
+        ledgerEntryRepository.save(prepareEntry(account.getId(), 0L, null, EntryType.OPENING,
+                Money.of(account.getBalance()), new Date()));
+    }
+
+    @Override
+    public void recordOpeningBalances(List<Account> accounts) {
+        Date now = new Date();
+        List<LedgerEntry> entries = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            entries.add(prepareEntry(account.getId(), 0L, null, EntryType.OPENING, Money.of(account.getBalance()), now));
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    @Override
+    public void recordTransfers(List<Transaction> transactions) {
+        Date now = new Date();
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            Money amount = Money.of(transaction.getAmount());
+            entries.add(prepareEntry(transaction.getSender().getId(), nextSequence(transaction.getSender()),
+                    transaction.getId(), EntryType.DEBIT, amount.negate(), now));
+            entries.add(prepareEntry(transaction.getReceiver().getId(), nextSequence(transaction.getReceiver()),
+                    transaction.getId(), EntryType.CREDIT, amount, now));
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Money balanceAt(Long accountId, Date at) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException("Account not found");
+        }
+        List<BalanceSnapshot> snapshots = balanceSnapshotRepository.findLatestAt(accountId, at, PageRequest.of(0, 1));
+        if (snapshots.isEmpty()) {
+            return Money.ofMinor(ledgerEntryRepository.sumAfter(accountId, -1L, at));
+        }
+        BalanceSnapshot snapshot = snapshots.get(0);
+        return Money.ofMinor(snapshot.getBalanceMinor())
+                .plus(Money.ofMinor(ledgerEntryRepository.sumAfter(accountId, snapshot.getLastSequence(), at)));
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${ledger.snapshot.interval-millis:3600000}",
+            initialDelayString = "${ledger.snapshot.interval-millis:3600000}")
+    public int snapshotBalances() {
+        int snapshots = balanceSnapshotRepository.snapshotBalances();
+        log.info("ledger snapshot written for {} accounts", snapshots);
+        return snapshots;
+    }
+
+    @Override
+    @Transactional
+    public int rebuildBalances() {
+        accountRepository.lockForRebuild();
+        int corrected = accountRepository.rebuildBalancesFromLedger();
+        eventPublisher.publishEvent(new BalancesRebuiltEvent(corrected));
+        log.info("balances rebuilt from the ledger, {} accounts corrected", corrected);
+        return corrected;
+    }
+
+    private Long nextSequence(Account account) {
+        long next = (account.getLedgerSequence() == null ? 0L : account.getLedgerSequence()) + 1;
+        account.setLedgerSequence(next);
+        return next;
+    }
+
+    private LedgerEntry prepareEntry(Long accountId, Long sequence, Long transactionId, EntryType entryType,
+                                     Money amount, Date createdAt) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setAccountId(accountId);
+        entry.setEntrySequence(sequence);
+        entry.setTransactionId(transactionId);
+        entry.setEntryType(entryType);
+        entry.setAmountMinor(amount.getMinorUnits());
+        entry.setCreatedAt(createdAt);
+        return entry;
+    }
+}
@@ -0,0 +1,279 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.OnboardedAccountDTO;
+import com.cydeo.banksimulation.dto.OnboardingErrorDTO;
+import com.cydeo.banksimulation.dto.OnboardingResultDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.enums.ExportFormat;
+import com.cydeo.banksimulation.event.AccountsCreatedEvent;
+import com.cydeo.banksimulation.exception.AccountStatusInvalidException;
+import com.cydeo.banksimulation.exception.BadRequestException;
+import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.LedgerService;
+import com.cydeo.banksimulation.service.OnboardingService;
+import com.cydeo.banksimulation.service.OtpService;
+import com.cydeo.banksimulation.util.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Creates accounts from an NDJSON or CSV upload. The body is read line by line in chunks of
+ * {@code account.onboarding.chunk-size} rows; the rows of a chunk are parsed and validated in parallel and
+ * the valid ones are written in one transaction with batched inserts: the accounts, their opening ledger
+ * entries, their otps and the queued otp sms. An invalid row is reported with its line number and the
+ * upload goes on; when a chunk fails to insert, each of its rows is reported. Every created account is
+ * reported with its line and the id of its otp, which is confirmed with the code sent by sms.
+ * <p>
+ * A CSV body starts with a header. accountType, userId, balance and phoneNumber are read, any other column,
+ * like the ones of an account export, is ignored. Quoted values may contain commas but no line breaks.
+ */
+@Slf4j
+@Service
+public class OnboardingServiceImpl implements OnboardingService {
+
+    private static final String[] CSV_COLUMNS = {"accountType", "userId", "balance", "phoneNumber"};
+
+    private final AccountRepository accountRepository;
+    private final LedgerService ledgerService;
+    private final OtpService otpService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader accountReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter createdCounter;
+    private final Counter rejectedCounter;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public OnboardingServiceImpl(AccountRepository accountRepository, LedgerService ledgerService,
+                                 OtpService otpService, TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${account.onboarding.chunk-size:1000}") int chunkSize,
+                                 @Value("${account.onboarding.max-reported-errors:1000}") int maxReportedErrors) {
+        this.accountRepository = accountRepository;
+        this.ledgerService = ledgerService;
+        this.otpService = otpService;
+        this.transactionTemplate = transactionTemplate;
+        this.accountReader = objectMapper.readerFor(AccountDTO.class);
+        this.eventPublisher = eventPublisher;
+        this.createdCounter = meterRegistry.counter("account.onboarding.rows", "outcome", "created");
+        this.rejectedCounter = meterRegistry.counter("account.onboarding.rows", "outcome", "rejected");
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public OnboardingResultDTO onboardAccounts(ExportFormat format, InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        OnboardingResultDTO result = new OnboardingResultDTO(0, 0, new ArrayList<>(), new ArrayList<>());
+        Map<String, Integer> columns = null;
+        List<String> rows = new ArrayList<>(chunkSize);
+        long[] lineNumbers = new long[chunkSize];
+        long lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == ExportFormat.CSV && columns == null) {
+                columns = parseHeader(line);
+                continue;
+            }
+            lineNumbers[rows.size()] = lineNumber;
+            rows.add(line);
+            if (rows.size() == chunkSize) {
+                processChunk(format, columns, rows, lineNumbers, result);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            processChunk(format, columns, rows, lineNumbers, result);
+        }
+        return result;
+    }
+
+    private void processChunk(ExportFormat format, Map<String, Integer> columns, List<String> rows,
+                              long[] lineNumbers, OnboardingResultDTO result) {
+        Account[] parsed = new Account[rows.size()];
+        String[] errors = new String[rows.size()];
+        IntStream.range(0, rows.size()).parallel().forEach(i -> {
+            try {
+                AccountDTO accountDTO = format == ExportFormat.CSV
+                        ? parseCsv(columns, rows.get(i))
+                        : accountReader.readValue(rows.get(i));
+                parsed[i] = prepareAccount(accountDTO);
+            } catch (JsonProcessingException e) {
+                errors[i] = "Row is not valid JSON: " + e.getOriginalMessage();
+            } catch (IOException | RuntimeException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        List<Account> accounts = new ArrayList<>(rows.size());
+        List<Long> accountLines = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (parsed[i] == null) {
+                reject(result, lineNumbers[i], errors[i]);
+            } else {
+                accounts.add(parsed[i]);
+                accountLines.add(lineNumbers[i]);
+            }
+        }
+        if (accounts.isEmpty()) {
+            return;
+        }
+
+        try {
+            long[] otpIds = transactionTemplate.execute(status -> insert(accounts));
+            for (int i = 0; i < accounts.size(); i++) {
+                result.getAccounts().add(new OnboardedAccountDTO(accountLines.get(i), accounts.get(i).getId(), otpIds[i]));
+            }
+            result.setCreated(result.getCreated() + accounts.size());
+            createdCounter.increment(accounts.size());
+        } catch (RuntimeException e) {
+            log.warn("onboarding chunk starting at line {} couldn't be saved: {}", accountLines.get(0), e.getMessage());
+            for (Long accountLine : accountLines) {
+                reject(result, accountLine, "Account could not be saved");
+            }
+        }
+    }
+
+    private long[] insert(List<Account> accounts) {
+        accountRepository.saveAll(accounts);
+        ledgerService.recordOpeningBalances(accounts);
+        long[] otpIds = otpService.createOtpsSendSms(accounts);
+        eventPublisher.publishEvent(new AccountsCreatedEvent(accounts));
+        return otpIds;
+    }
+
+    // same rules as a single account, the id and verification of the row are never taken over
+    private Account prepareAccount(AccountDTO accountDTO) {
+        if (accountDTO.getAccountType() == null) {
+            throw new BadRequestException("Account type can not be null");
+        }
+        if (accountDTO.getBalance() == null || accountDTO.getBalance().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BalanceNotSufficientException("Initial balance needs to bigger than Zero");
+        }
+        if (AccountStatus.DELETED.equals(accountDTO.getAccountStatus())) {
+            throw new AccountStatusInvalidException("Account status can not be Deleted");
+        }
+        try {
+            Money.of(accountDTO.getBalance());
+        } catch (ArithmeticException e) {
+            throw new BadRequestException("Initial balance can not have more than 2 decimal places");
+        }
+
+        Account account = new Account();
+        account.setAccountType(accountDTO.getAccountType());
+        account.setAccountStatus(AccountStatus.ACTIVE);
+        account.setCreationDate(new Date());
+        account.setUserId(accountDTO.getUserId());
+        account.setBalance(accountDTO.getBalance());
+        account.setPhoneNumber(accountDTO.getPhoneNumber());
+        account.setOtpVerified(false);
+        return account;
+    }
+
+    private void reject(OnboardingResultDTO result, long lineNumber, String message) {
+        result.setRejected(result.getRejected() + 1);
+        rejectedCounter.increment();
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new OnboardingErrorDTO(lineNumber, message));
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line.startsWith("\uFEFF") ? line.substring(1) : line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new BadRequestException("CSV header needs the columns " + String.join(", ", CSV_COLUMNS));
+            }
+        }
+        return columns;
+    }
+
+    private AccountDTO parseCsv(Map<String, Integer> columns, String line) {
+        List<String> values = splitCsv(line);
+        AccountDTO accountDTO = new AccountDTO();
+        accountDTO.setAccountType(column(values, columns, "accountType", AccountType::valueOf));
+        accountDTO.setUserId(column(values, columns, "userId", Long::valueOf));
+        accountDTO.setBalance(column(values, columns, "balance", BigDecimal::new));
+        accountDTO.setPhoneNumber(column(values, columns, "phoneNumber", Function.identity()));
+        if (columns.containsKey("accountStatus")) {
+            accountDTO.setAccountStatus(column(values, columns, "accountStatus", AccountStatus::valueOf));
+        }
+        return accountDTO;
+    }
+
+    private <T> T column(List<String> values, Map<String, Integer> columns, String name, Function<String, T> parser) {
+        int index = columns.get(name);
+        if (index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.apply(values.get(index));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Column " + name + " is not valid");
+        }
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,100 @@
+package com.cydeo.banksimulation.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out six digit otp codes from a fixed set of stripes, twice as many as there are processors. Every
+ * stripe owns a DRBG seeded once from the platform entropy source and draws its codes a block at a time
+ * from a single nextBytes call, so issuing a code is an array read under an uncontended lock and never
+ * allocates. Stripes are picked at random rather than per thread, so virtual threads share them too.
+ */
+@Component
+public class OtpCodeGenerator {
+
+    private static final int MIN_CODE = 100000;
+    private static final int CODE_RANGE = 900000;
+    // largest multiple of the range that fits in 32 unsigned bits, draws above it would bias low codes
+    private static final long UNBIASED_LIMIT = (1L << 32) - (1L << 32) % CODE_RANGE;
+
+    private final CodeBlock[] stripes;
+    private final int mask;
+
+    public OtpCodeGenerator(@Value("${otp.generator.block-size:256}") int blockSize) {
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.stripes = new CodeBlock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new CodeBlock(blockSize);
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    public int nextCode() {
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i < stripes.length; i++) {
+            CodeBlock block = stripes[(start + i) & mask];
+            if (block.lock.tryLock()) {
+                try {
+                    return block.next();
+                } finally {
+                    block.lock.unlock();
+                }
+            }
+        }
+        // every stripe is busy, wait for the one we started at
+        CodeBlock block = stripes[start & mask];
+        block.lock.lock();
+        try {
+            return block.next();
+        } finally {
+            block.lock.unlock();
+        }
+    }
+
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    private static final class CodeBlock {
+
+        // not synchronized, a virtual thread refilling the block must not pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private final SecureRandom random = newSecureRandom();
+        private final byte[] bytes;
+        private final int[] codes;
+        private int position;
+
+        CodeBlock(int blockSize) {
+            this.bytes = new byte[blockSize * Integer.BYTES];
+            this.codes = new int[blockSize];
+            this.position = blockSize;
+        }
+
+        int next() {
+            if (position == codes.length) {
+                refill();
+            }
+            return codes[position++];
+        }
+
+        private void refill() {
+            random.nextBytes(bytes);
+            for (int i = 0; i < codes.length; i++) {
+                int offset = i * Integer.BYTES;
+                long draw = ((bytes[offset] & 0xFFL) << 24) | ((bytes[offset + 1] & 0xFFL) << 16)
+                        | ((bytes[offset + 2] & 0xFFL) << 8) | (bytes[offset + 3] & 0xFFL);
+                codes[i] = MIN_CODE + (int) (draw < UNBIASED_LIMIT ? draw % CODE_RANGE : random.nextInt(CODE_RANGE));
+            }
+            position = 0;
+        }
+    }
+}
@@ -1,70 +1,127 @@
 package com.cydeo.banksimulation.service.impl;
 
-import com.cydeo.banksimulation.service.SmsService;
 import com.cydeo.banksimulation.dto.OtpDTO;
-import com.cydeo.banksimulation.dto.SmsRequestDTO;
 import com.cydeo.banksimulation.entity.Account;
-import com.cydeo.banksimulation.entity.Otp;
-import com.cydeo.banksimulation.enums.VerificationStatus;
+import com.cydeo.banksimulation.entity.SmsOutbox;
+import com.cydeo.banksimulation.enums.SmsStatus;
+import com.cydeo.banksimulation.event.AccountChangedEvent;
+import com.cydeo.banksimulation.exception.AccountNotFoundException;
 import com.cydeo.banksimulation.exception.OtpInvalidException;
-import com.cydeo.banksimulation.exception.SmsException;
 import com.cydeo.banksimulation.repository.AccountRepository;
-import com.cydeo.banksimulation.repository.OtpRepository;
+import com.cydeo.banksimulation.repository.SmsOutboxRepository;
 import com.cydeo.banksimulation.service.OtpService;
+import com.cydeo.banksimulation.service.OtpStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import java.util.Random;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class OtpServiceImpl implements OtpService {
 
-    private final OtpRepository otpRepository;
+    private final OtpStore otpStore;
     private final AccountRepository accountRepository;
-    private final SmsService smsService;
+    private final SmsOutboxRepository smsOutboxRepository;
+    private final OtpCodeGenerator otpCodeGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer createTimer;
+    private final Timer bulkCreateTimer;
+    private final Timer confirmSuccessTimer;
+    private final Timer confirmRejectedTimer;
 
-    public OtpServiceImpl(OtpRepository otpRepository,
+    public OtpServiceImpl(OtpStore otpStore,
                           AccountRepository accountRepository,
-                          SmsService smsService) {
-        this.otpRepository = otpRepository;
+                          SmsOutboxRepository smsOutboxRepository,
+                          OtpCodeGenerator otpCodeGenerator,
+                          ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry) {
+        this.otpStore = otpStore;
         this.accountRepository = accountRepository;
-        this.smsService = smsService;
+        this.smsOutboxRepository = smsOutboxRepository;
+        this.otpCodeGenerator = otpCodeGenerator;
+        this.eventPublisher = eventPublisher;
+        this.createTimer = meterRegistry.timer("otp.create");
+        this.bulkCreateTimer = meterRegistry.timer("otp.create.bulk");
+        this.confirmSuccessTimer = meterRegistry.timer("otp.confirm", "outcome", "success");
+        this.confirmRejectedTimer = meterRegistry.timer("otp.confirm", "outcome", "rejected");
     }
 
     @Override
+    @Transactional
     public OtpDTO createOtpSendSms(Account account) {
-        Otp otp = new Otp();
-        otp.setAccount(account);
-        otp.setVerificationStatus(VerificationStatus.PENDING);
-        otp.setOtpCode(new Random().nextInt(900000) + 100000);
-        otpRepository.save(otp);
+        long start = System.nanoTime();
+        int otpCode = otpCodeGenerator.nextCode();
+        long otpId = otpStore.save(account.getId(), otpCode);
+
+        // the sms is only queued here, SmsDispatcher delivers it after the account transaction commits
+        smsOutboxRepository.save(prepareSms(account.getPhoneNumber(), prepareMessage(otpCode)));
 
-        SmsRequestDTO smsRequestDTO = new SmsRequestDTO(account.getPhoneNumber(), prepareMessage(otp.getOtpCode()));
+        createTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new OtpDTO(otpCode, otpId);
+    }
+
+    @Override
+    @Transactional
+    public long[] createOtpsSendSms(List<Account> accounts) {
+        long start = System.nanoTime();
+        long[] accountIds = new long[accounts.size()];
+        int[] otpCodes = new int[accounts.size()];
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = accounts.get(i).getId();
+            otpCodes[i] = otpCodeGenerator.nextCode();
+        }
+        long[] otpIds = otpStore.saveAll(accountIds, otpCodes);
 
-        String smsResponse = smsService.sendSms(smsRequestDTO);
-        if (!smsResponse.equals("ok")){
-            throw new SmsException("sms couldn't send");
+        List<SmsOutbox> messages = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accountIds.length; i++) {
+            messages.add(prepareSms(accounts.get(i).getPhoneNumber(), prepareMessage(otpCodes[i])));
         }
+        smsOutboxRepository.saveAll(messages);
 
-        return new OtpDTO(otp.getOtpCode(), otp.getId());
+        bulkCreateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return otpIds;
     }
 
     @Override
+    @Transactional
     public void confirmOtp(Integer otpCode, Long otpId) {
-        Otp otp = otpRepository.getById(otpId);
-        if (otp == null){
-            throw new OtpInvalidException("otp not found");
-        }
+        long start = System.nanoTime();
+        try {
+            if (otpCode == null || otpId == null){
+                throw new OtpInvalidException("otp not found");
+            }
 
-        if (otp.getOtpCode().equals(otpCode)){
-            Account account = otp.getAccount();
+            long accountId = otpStore.verify(otpId, otpCode);
+            // a managed update rather than a bulk one, so the version moves and only this account leaves the cache
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new AccountNotFoundException("Account not found"));
             account.setOtpVerified(true);
-            accountRepository.save(account);
-        }else {
-            throw new OtpInvalidException("Otpcode does not match");
+            eventPublisher.publishEvent(new AccountChangedEvent(accountId));
+            confirmSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            confirmRejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
         }
-
     }
 
     public String prepareMessage(Integer otpCode){
         return "To verify account please use " + otpCode + "otpCode";
     }
+
+    private SmsOutbox prepareSms(String phoneNumber, String message) {
+        Date now = new Date();
+        SmsOutbox smsOutbox = new SmsOutbox();
+        smsOutbox.setPhoneNumber(phoneNumber);
+        smsOutbox.setMessage(message);
+        smsOutbox.setStatus(SmsStatus.PENDING);
+        smsOutbox.setNextAttemptAt(now);
+        smsOutbox.setCreatedAt(now);
+        return smsOutbox;
+    }
 }
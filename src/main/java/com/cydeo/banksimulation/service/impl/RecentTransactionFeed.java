@@ -0,0 +1,85 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.TransactionDTO;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.event.TransferCompletedEvent;
+import com.cydeo.banksimulation.mapper.TransactionMapper;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer holding the most recent transfers. Writers claim a sequence number and
+ * publish into its slot, readers walk backwards from the head and skip slots that were already
+ * overwritten by a newer sequence.
+ */
+@Component
+public class RecentTransactionFeed {
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final int capacity;
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong head = new AtomicLong();
+
+    public RecentTransactionFeed(TransactionRepository transactionRepository, TransactionMapper transactionMapper,
+                                 @Value("${transaction.feed.size:10}") int capacity) {
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        List<Transaction> recent = transactionRepository.findRecentTransactions(PageRequest.of(0, capacity));
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            add(transactionMapper.convertToDto(recent.get(i)));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        for (Transaction transaction : event.getTransactions()) {
+            add(transactionMapper.convertToDto(transaction));
+        }
+    }
+
+    public void add(TransactionDTO transactionDTO) {
+        long sequence = head.getAndIncrement();
+        slots.set((int) (sequence % capacity), new Entry(sequence, transactionDTO));
+    }
+
+    public List<TransactionDTO> latest() {
+        long end = head.get();
+        long start = Math.max(0, end - capacity);
+        List<TransactionDTO> latest = new ArrayList<>((int) (end - start));
+        for (long sequence = end - 1; sequence >= start; sequence--) {
+            Entry entry = slots.get((int) (sequence % capacity));
+            if (entry != null && entry.sequence == sequence) {
+                latest.add(entry.transactionDTO);
+            }
+        }
+        return latest;
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final TransactionDTO transactionDTO;
+
+        private Entry(long sequence, TransactionDTO transactionDTO) {
+            this.sequence = sequence;
+            this.transactionDTO = transactionDTO;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.service.TransferEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries transfers that lost an optimistic version check. Every attempt runs in its own
+ * transaction, and attempts are spaced with exponential backoff and full jitter. Not created with the
+ * journal enabled, its engines take over transfers.
+ */
+@Primary
+@ConditionalOnExpression("'${transfer.locking-mode:PESSIMISTIC}' == 'OPTIMISTIC' and !${transfer.journal.enabled:false}")
+@Service
+public class RetryingTransferEngine implements TransferEngine {
+
+    @Value("${transfer.optimistic.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${transfer.optimistic.backoff-millis:5}")
+    private long backoffMillis;
+
+    private final TransferEngineImpl transferEngine;
+    private final Counter retryCounter;
+    private final Counter exhaustedCounter;
+
+    public RetryingTransferEngine(TransferEngineImpl transferEngine, MeterRegistry meterRegistry) {
+        this.transferEngine = transferEngine;
+        this.retryCounter = meterRegistry.counter("transfer.optimistic.retries");
+        this.exhaustedCounter = meterRegistry.counter("transfer.optimistic.retries.exhausted");
+    }
+
+    @Override
+    public Transaction transfer(BigDecimal amount, Date creationDate, Long senderId, Long receiverId, String message) {
+        return withRetry(() -> transferEngine.transfer(amount, creationDate, senderId, receiverId, message));
+    }
+
+    @Override
+    public List<TransferResultDTO> transferAll(List<TransferRequestDTO> transfers, Date creationDate) {
+        return withRetry(() -> transferEngine.transferAll(transfers, creationDate));
+    }
+
+    private <T> T withRetry(Supplier<T> attemptTransfer) {
+        int attempt = 0;
+        while (true) {
+            try {
+                return attemptTransfer.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxRetries) {
+                    exhaustedCounter.increment();
+                    throw e;
+                }
+                attempt++;
+                retryCounter.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transfer retry was interrupted", e);
+        }
+    }
+
+}
@@ -0,0 +1,440 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.event.AccountChangedEvent;
+import com.cydeo.banksimulation.exception.AccountNotFoundException;
+import com.cydeo.banksimulation.exception.BadRequestException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.TransferEngine;
+import com.cydeo.banksimulation.util.Money;
+import com.cydeo.banksimulation.util.MpscRingBuffer;
+import com.cydeo.banksimulation.util.TransferJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps balances in memory, partitioned by account id over a fixed number of shards. Every shard is a
+ * single thread that owns its accounts outright, so balances are updated without locks; requests reach it
+ * through a lock-free {@link MpscRingBuffer}. Accepted transfers are made durable through the
+ * {@link TransferJournal} and projected to Postgres by {@link JournalProjector}, as in the LOCKING engine.
+ * <p>
+ * A transfer between two shards runs in two phases. The receiver's shard first hands out the receiver's
+ * details so the sender's shard can apply the same rules as {@link TransferEngineImpl}; the sender's shard
+ * then validates, reserves the amount by debiting the sender and journals the transfer. Only after that
+ * does the receiver's shard commit the credit. A credit is therefore never spendable before the record that
+ * creates it is in the journal, and journal order stays consistent with every balance check.
+ * <p>
+ * Shard threads never wait on each other or on the database: callers load missing accounts and register
+ * them with their shard before sending any work. A caller waits {@code transfer.journal.shard-timeout-millis}
+ * for a command; one the shard has not picked up by then is dropped and fails, only a credit whose debit is
+ * already journaled is awaited for as long as its shard runs. Commands still queued when a shard stops fail.
+ */
+@Slf4j
+@Primary
+@ConditionalOnExpression("${transfer.journal.enabled:false} and '${transfer.journal.engine:LOCKING}' == 'SHARDED'")
+@Service
+public class ShardedTransferEngine implements TransferEngine {
+
+    private static final int SPINS_BEFORE_PARK = 1000;
+
+    private final TransferJournal transferJournal;
+    private final AccountRepository accountRepository;
+    private final TransferMetrics transferMetrics;
+    private final Shard[] shards;
+    private final long timeoutMillis;
+    private final Set<Long> registered = ConcurrentHashMap.newKeySet();
+
+    // the projector is a dependency so that the journal is replayed before the first transfer is accepted
+    public ShardedTransferEngine(TransferJournal transferJournal, JournalProjector journalProjector,
+                                 AccountRepository accountRepository, TransferMetrics transferMetrics,
+                                 @Value("${transfer.journal.shards:0}") int shardCount,
+                                 @Value("${transfer.journal.shard-queue-size:65536}") int queueSize,
+                                 @Value("${transfer.journal.shard-timeout-millis:5000}") long timeoutMillis) {
+        this.transferJournal = transferJournal;
+        this.accountRepository = accountRepository;
+        this.transferMetrics = transferMetrics;
+        this.timeoutMillis = timeoutMillis;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i, queueSize);
+        }
+        log.info("Sharded transfer engine started with {} shards", count);
+    }
+
+    @Override
+    public Transaction transfer(BigDecimal amount, Date creationDate, Long senderId, Long receiverId, String message) {
+        Accepted accepted = accept(amount, creationDate, senderId, receiverId, message);
+        long persistStart = System.nanoTime();
+        transferJournal.awaitDurable(accepted.sequence);
+        transferMetrics.persistCompleted(persistStart);
+        return accepted.transaction;
+    }
+
+    @Override
+    public List<TransferResultDTO> transferAll(List<TransferRequestDTO> transfers, Date creationDate) {
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        List<TransferResultDTO> accepted = new ArrayList<>(transfers.size());
+        long lastSequence = 0;
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO request = transfers.get(i);
+            TransferResultDTO result = new TransferResultDTO(i, false, null, null);
+            results.add(result);
+            try {
+                if (request.getSenderId() == null || request.getReceiverId() == null) {
+                    throw new BadRequestException("Sender or receiver can not be null");
+                }
+                lastSequence = accept(request.getAmount(), creationDate, request.getSenderId(),
+                        request.getReceiverId(), request.getMessage()).sequence;
+                accepted.add(result);
+            } catch (RuntimeException e) {
+                transferMetrics.rejected(e);
+                result.setMessage(e.getMessage());
+            }
+        }
+
+        long persistStart = System.nanoTime();
+        transferJournal.awaitDurable(lastSequence);
+        transferMetrics.batchPersistCompleted(persistStart);
+        for (TransferResultDTO result : accepted) {
+            result.setSuccess(true);
+        }
+        return results;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (!registered.contains(event.getAccountId())) {
+            return;
+        }
+        accountRepository.findById(event.getAccountId()).ifPresent(account ->
+                call(shardOf(account.getId()), Command.refresh(account)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    private Accepted accept(BigDecimal amount, Date creationDate, Long senderId, Long receiverId, String message) {
+        TransferRules.checkDifferentAccounts(senderId, receiverId);
+        register(senderId);
+        register(receiverId);
+
+        Shard senderShard = shardOf(senderId);
+        Shard receiverShard = shardOf(receiverId);
+        if (senderShard == receiverShard) {
+            return (Accepted) call(senderShard, Command.transfer(senderId, receiverId, null, amount, creationDate, message));
+        }
+
+        Account receiver = (Account) call(receiverShard, Command.prepareCredit(receiverId));
+        Accepted accepted = (Accepted) call(senderShard,
+                Command.transfer(senderId, receiverId, receiver, amount, creationDate, message));
+        Money receiverBalance = (Money) call(receiverShard,
+                Command.commitCredit(receiverId, Money.of(accepted.transaction.getAmount())));
+        accepted.transaction.setReceiver(JournalTransferEngine.copyOf(receiver, receiverBalance));
+        return accepted;
+    }
+
+    private void register(Long accountId) {
+        if (registered.contains(accountId)) {
+            return;
+        }
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+        // the shard keeps the first registration, a later one may carry a balance that is already outdated
+        call(shardOf(accountId), Command.register(account));
+        registered.add(accountId);
+    }
+
+    private Shard shardOf(long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return shards[(int) ((h ^ (h >>> 32)) & 0x7FFFFFFF) % shards.length];
+    }
+
+    private Object call(Shard shard, Command command) {
+        shard.submit(command);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return command.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | InterruptedException e) {
+                    interrupted |= e instanceof InterruptedException;
+                    if (command.abandon()) {
+                        throw new IllegalStateException("Transfer engine did not answer in time");
+                    }
+                    if (!shard.running) {
+                        throw new IllegalStateException("Transfer engine is stopped");
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Shard command failed", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final class Shard implements Runnable {
+
+        private final MpscRingBuffer<Command> queue;
+        private final Map<Long, AccountState> accounts = new HashMap<>();
+        private final Thread thread;
+        private volatile boolean parked;
+        private volatile boolean running = true;
+
+        Shard(int index, int queueSize) {
+            this.queue = new MpscRingBuffer<>(queueSize);
+            this.thread = new Thread(this, "transfer-shard-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void submit(Command command) {
+            while (running && !queue.offer(command)) {
+                Thread.onSpinWait();
+            }
+            if (!running) {
+                throw new IllegalStateException("Transfer engine is stopped");
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            try {
+                int idle = 0;
+                while (running) {
+                    Command command = queue.poll();
+                    if (command == null) {
+                        if (++idle < SPINS_BEFORE_PARK) {
+                            Thread.onSpinWait();
+                        } else {
+                            parked = true;
+                            if (queue.isEmpty()) {
+                                LockSupport.parkNanos(1_000_000);
+                            }
+                            parked = false;
+                        }
+                        continue;
+                    }
+                    idle = 0;
+                    if (command.start()) {
+                        execute(command);
+                    }
+                }
+            } finally {
+                running = false;
+                IllegalStateException stopped = new IllegalStateException("Transfer engine is stopped");
+                Command pending;
+                while ((pending = queue.poll()) != null) {
+                    pending.result.completeExceptionally(stopped);
+                }
+            }
+        }
+
+        private void execute(Command command) {
+            try {
+                command.result.complete(handle(command));
+            } catch (RuntimeException e) {
+                command.result.completeExceptionally(e);
+            } catch (Throwable e) {
+                log.error("Shard command {} failed", command.type, e);
+                command.result.completeExceptionally(e);
+            }
+        }
+
+        private Object handle(Command command) {
+            switch (command.type) {
+                case REGISTER:
+                    accounts.putIfAbsent(command.account.getId(),
+                            new AccountState(command.account, Money.of(command.account.getBalance()).getMinorUnits()));
+                    return null;
+                case REFRESH:
+                    AccountState refreshed = accounts.get(command.account.getId());
+                    if (refreshed != null) {
+                        refreshed.account = command.account;
+                    }
+                    return null;
+                case PREPARE_CREDIT:
+                    return state(command.receiverId).account;
+                case COMMIT_CREDIT:
+                    AccountState credited = state(command.receiverId);
+                    credited.balanceMinor = Money.ofMinor(credited.balanceMinor).plus(command.credit).getMinorUnits();
+                    return Money.ofMinor(credited.balanceMinor);
+                case TRANSFER:
+                    return transfer(command);
+                default:
+                    throw new IllegalStateException("Unknown shard command " + command.type);
+            }
+        }
+
+        // reserve phase, the credit is applied here only when both accounts live on this shard
+        private Accepted transfer(Command command) {
+            AccountState sender = state(command.senderId);
+            AccountState localReceiver = command.receiver == null ? state(command.receiverId) : null;
+            Account receiver = localReceiver != null ? localReceiver.account : command.receiver;
+
+            TransferRules.validateAccounts(sender.account, receiver);
+            Money transferAmount = TransferRules.checkAmount(command.amount);
+            Money senderBalance = TransferRules.debit(Money.ofMinor(sender.balanceMinor), transferAmount);
+
+            long sequence = transferJournal.append(command.senderId, command.receiverId,
+                    transferAmount.getMinorUnits(), command.creationDate.getTime(), command.message);
+            sender.balanceMinor = senderBalance.getMinorUnits();
+
+            Transaction transaction = new Transaction();
+            transaction.setSender(JournalTransferEngine.copyOf(sender.account, senderBalance));
+            if (localReceiver != null) {
+                Money receiverBalance = Money.ofMinor(localReceiver.balanceMinor).plus(transferAmount);
+                localReceiver.balanceMinor = receiverBalance.getMinorUnits();
+                transaction.setReceiver(JournalTransferEngine.copyOf(receiver, receiverBalance));
+            }
+            transaction.setAmount(transferAmount.toBigDecimal());
+            transaction.setMessage(command.message);
+            transaction.setCreationDate(command.creationDate);
+            return new Accepted(sequence, transaction);
+        }
+
+        private AccountState state(long accountId) {
+            AccountState state = accounts.get(accountId);
+            if (state == null) {
+                throw new AccountNotFoundException("Account not found");
+            }
+            return state;
+        }
+    }
+
+    private enum CommandType {
+        REGISTER, REFRESH, PREPARE_CREDIT, TRANSFER, COMMIT_CREDIT
+    }
+
+    private static final class Command {
+
+        private final CommandType type;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private Account account;
+        private long senderId;
+        private long receiverId;
+        private Account receiver;
+        private BigDecimal amount;
+        private Money credit;
+        private Date creationDate;
+        private String message;
+
+        private Command(CommandType type) {
+            this.type = type;
+        }
+
+        boolean start() {
+            return started.compareAndSet(false, true);
+        }
+
+        // a credit is never dropped, the debit it belongs to is already in the journal
+        boolean abandon() {
+            return type != CommandType.COMMIT_CREDIT && started.compareAndSet(false, true);
+        }
+
+        static Command register(Account account) {
+            Command command = new Command(CommandType.REGISTER);
+            command.account = account;
+            return command;
+        }
+
+        static Command refresh(Account account) {
+            Command command = new Command(CommandType.REFRESH);
+            command.account = account;
+            return command;
+        }
+
+        static Command prepareCredit(long receiverId) {
+            Command command = new Command(CommandType.PREPARE_CREDIT);
+            command.receiverId = receiverId;
+            return command;
+        }
+
+        // receiver is null when both accounts are on the same shard
+        static Command transfer(long senderId, long receiverId, Account receiver, BigDecimal amount,
+                                Date creationDate, String message) {
+            Command command = new Command(CommandType.TRANSFER);
+            command.senderId = senderId;
+            command.receiverId = receiverId;
+            command.receiver = receiver;
+            command.amount = amount;
+            command.creationDate = creationDate;
+            command.message = message;
+            return command;
+        }
+
+        static Command commitCredit(long receiverId, Money credit) {
+            Command command = new Command(CommandType.COMMIT_CREDIT);
+            command.receiverId = receiverId;
+            command.credit = credit;
+            return command;
+        }
+    }
+
+    private static final class AccountState {
+
+        // detached copy used for validation only, its balance is not maintained
+        private Account account;
+        private long balanceMinor;
+
+        AccountState(Account account, long balanceMinor) {
+            this.account = account;
+            this.balanceMinor = balanceMinor;
+        }
+    }
+
+    private static final class Accepted {
+
+        private final long sequence;
+        private final Transaction transaction;
+
+        Accepted(long sequence, Transaction transaction) {
+            this.sequence = sequence;
+            this.transaction = transaction;
+        }
+    }
+}
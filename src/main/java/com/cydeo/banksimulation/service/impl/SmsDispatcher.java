@@ -0,0 +1,134 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.SmsRequestDTO;
+import com.cydeo.banksimulation.entity.SmsOutbox;
+import com.cydeo.banksimulation.enums.SmsStatus;
+import com.cydeo.banksimulation.repository.SmsOutboxRepository;
+import com.cydeo.banksimulation.service.SmsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Drains the SMS outbox. Due rows are claimed in batches by pushing their next attempt past a lease,
+ * sent on the bounded sms executor outside of any transaction, and then marked SENT or rescheduled
+ * with exponential backoff until they run out of attempts.
+ */
+@Slf4j
+@Component
+public class SmsDispatcher {
+
+    @Value("${sms.dispatch.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${sms.dispatch.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${sms.dispatch.backoff-millis:1000}")
+    private long backoffMillis = 1000;
+
+    @Value("${sms.dispatch.lease-millis:60000}")
+    private long leaseMillis = 60000;
+
+    private final SmsOutboxRepository smsOutboxRepository;
+    private final SmsService smsService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor smsExecutor;
+
+    public SmsDispatcher(SmsOutboxRepository smsOutboxRepository, SmsService smsService,
+                         TransactionTemplate transactionTemplate, @Qualifier("smsExecutor") Executor smsExecutor) {
+        this.smsOutboxRepository = smsOutboxRepository;
+        this.smsService = smsService;
+        this.transactionTemplate = transactionTemplate;
+        this.smsExecutor = smsExecutor;
+    }
+
+    @Scheduled(fixedDelayString = "${sms.dispatch.poll-interval-millis:200}")
+    public void dispatch() {
+        List<SmsOutbox> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                completeBatch(batch, sendBatch(batch));
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<SmsOutbox> claimBatch() {
+        List<SmsOutbox> batch = transactionTemplate.execute(status -> {
+            Date now = new Date();
+            List<SmsOutbox> due = smsOutboxRepository.findDueForUpdate(SmsStatus.PENDING, now, PageRequest.of(0, batchSize));
+            Date leaseUntil = new Date(now.getTime() + leaseMillis);
+            due.forEach(smsOutbox -> smsOutbox.setNextAttemptAt(leaseUntil));
+            return due;
+        });
+        return batch == null ? Collections.emptyList() : batch;
+    }
+
+    private List<Boolean> sendBatch(List<SmsOutbox> batch) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(batch.size());
+        for (SmsOutbox smsOutbox : batch) {
+            futures.add(CompletableFuture.supplyAsync(() -> send(smsOutbox), smsExecutor));
+        }
+        List<Boolean> results = new ArrayList<>(batch.size());
+        for (CompletableFuture<Boolean> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private boolean send(SmsOutbox smsOutbox) {
+        try {
+            return "ok".equals(smsService.sendSms(new SmsRequestDTO(smsOutbox.getMessage(), smsOutbox.getPhoneNumber())));
+        } catch (RuntimeException e) {
+            log.warn("sms {} couldn't send: {}", smsOutbox.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void completeBatch(List<SmsOutbox> batch, List<Boolean> results) {
+        List<Long> sentIds = new ArrayList<>();
+        List<SmsOutbox> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            SmsOutbox smsOutbox = batch.get(i);
+            if (results.get(i)) {
+                sentIds.add(smsOutbox.getId());
+            } else {
+                reschedule(smsOutbox);
+                failed.add(smsOutbox);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                smsOutboxRepository.updateStatus(sentIds, SmsStatus.SENT);
+            }
+            if (!failed.isEmpty()) {
+                smsOutboxRepository.saveAll(failed);
+            }
+        });
+    }
+
+    private void reschedule(SmsOutbox smsOutbox) {
+        int attempts = smsOutbox.getAttempts() + 1;
+        smsOutbox.setAttempts(attempts);
+        if (attempts >= maxAttempts) {
+            smsOutbox.setStatus(SmsStatus.FAILED);
+        } else {
+            long delay = backoffMillis << Math.min(attempts - 1, 16);
+            smsOutbox.setNextAttemptAt(new Date(System.currentTimeMillis() + delay));
+        }
+    }
+
+}
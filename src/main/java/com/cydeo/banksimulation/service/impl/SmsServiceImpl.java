@@ -1,26 +1,76 @@
 package com.cydeo.banksimulation.service.impl;
 
 import com.cydeo.banksimulation.dto.SmsRequestDTO;
+import com.cydeo.banksimulation.exception.SmsException;
 import com.cydeo.banksimulation.service.SmsService;
+import com.cydeo.banksimulation.util.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
 
+@ConditionalOnProperty(value = "mock.smsservice.enable", havingValue = "false", matchIfMissing = true)
 @Service
 public class SmsServiceImpl implements SmsService{
+
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final URI smsUri;
+    private final Timer sentTimer;
+    private final Timer rejectedTimer;
+    private final Timer failedTimer;
+    private final Timer circuitOpenTimer;
+
+    public SmsServiceImpl(@Qualifier("smsRestTemplate") RestTemplate restTemplate, CircuitBreaker smsCircuitBreaker,
+                          @Value("${sms.client.url:http://localhost:8081/v1/sms}") String smsUrl,
+                          MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.circuitBreaker = smsCircuitBreaker;
+        this.smsUri = URI.create(smsUrl);
+        this.sentTimer = meterRegistry.timer("sms.send", "outcome", "sent");
+        this.rejectedTimer = meterRegistry.timer("sms.send", "outcome", "rejected");
+        this.failedTimer = meterRegistry.timer("sms.send", "outcome", "failed");
+        this.circuitOpenTimer = meterRegistry.timer("sms.send", "outcome", "circuit_open");
+    }
+
     @Override
     public String sendSms(SmsRequestDTO smsRequestDTO) {
-        RestTemplate restTemplate = new RestTemplate();
-
+        long start = System.nanoTime();
+        if (!circuitBreaker.tryAcquire()) {
+            record(circuitOpenTimer, start);
+            throw new SmsException("Sms gateway is unavailable, circuit is open");
+        }
         try {
-            URI uri = new URI("http://localhost:8081/v1/sms");
-            return restTemplate.postForObject(uri, smsRequestDTO,String.class);
-        } catch (URISyntaxException e) {
-            e.printStackTrace();
+            String response = restTemplate.postForObject(smsUri, smsRequestDTO, String.class);
+            circuitBreaker.onSuccess();
+            record(sentTimer, start);
+            return response;
+        } catch (HttpClientErrorException e) {
+            // the gateway answered, it just rejected this message
+            circuitBreaker.onSuccess();
+            record(rejectedTimer, start);
+            throw new SmsException("Sms was rejected by the gateway: " + e.getStatusCode());
+        } catch (RestClientException e) {
+            circuitBreaker.onFailure();
+            record(failedTimer, start);
+            throw new SmsException("Sms couldn't be sent: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // anything else still has to report back, a trial call would otherwise hold the circuit half open
+            circuitBreaker.onFailure();
+            record(failedTimer, start);
+            throw e;
         }
-        return "nok";
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
 }
@@ -1,124 +1,110 @@
 package com.cydeo.banksimulation.service.impl;
 
 import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.CursorPageDTO;
 import com.cydeo.banksimulation.dto.TransactionDTO;
-import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
 import com.cydeo.banksimulation.entity.Transaction;
-import com.cydeo.banksimulation.enums.AccountStatus;
-import com.cydeo.banksimulation.enums.AccountType;
 import com.cydeo.banksimulation.exception.*;
 import com.cydeo.banksimulation.mapper.TransactionMapper;
 import com.cydeo.banksimulation.repository.TransactionRepository;
-import com.cydeo.banksimulation.service.AccountService;
 import com.cydeo.banksimulation.service.TransactionService;
+import com.cydeo.banksimulation.service.TransferEngine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final Date FIRST_PAGE_DATE = new GregorianCalendar(9999, Calendar.DECEMBER, 31).getTime();
+
     @Value("${under_construction}")
     private boolean underConstruction;
 
-    private final AccountService accountService;
+    @Value("${transfer.batch.max-size:50000}")
+    private int maxBatchSize = 50000;
+
+    private final TransferEngine transferEngine;
     private final TransactionRepository transactionRepository;
     private final TransactionMapper transactionMapper;
-
-    public TransactionServiceImpl(AccountService accountService, TransactionRepository transactionRepository, TransactionMapper transactionMapper) {
-        this.accountService = accountService;
+    private final RecentTransactionFeed recentTransactionFeed;
+    private final TransferMetrics transferMetrics;
+    private final AccountIndex accountIndex;
+
+    public TransactionServiceImpl(TransferEngine transferEngine, TransactionRepository transactionRepository,
+                                  TransactionMapper transactionMapper, RecentTransactionFeed recentTransactionFeed,
+                                  TransferMetrics transferMetrics, AccountIndex accountIndex) {
+        this.transferEngine = transferEngine;
         this.transactionRepository = transactionRepository;
         this.transactionMapper = transactionMapper;
+        this.recentTransactionFeed = recentTransactionFeed;
+        this.transferMetrics = transferMetrics;
+        this.accountIndex = accountIndex;
     }
 
     @Override
     public TransactionDTO makeTransfer(BigDecimal amount, Date creationDate, AccountDTO sender, AccountDTO receiver, String message) {
-
-        if (!underConstruction) {
-            validateAccounts(sender, receiver);
-            checkAccountOwnerShip(sender, receiver);
-            executeBalanceAndUpdateIfRequired(amount, sender, receiver);
-            TransactionDTO transactionDTO = new TransactionDTO(sender, receiver, amount, message, creationDate);
-
-            transactionRepository.save(transactionMapper.convertToEntity(transactionDTO));
-
+        long start = System.nanoTime();
+        try {
+            TransactionDTO transactionDTO = transfer(amount, creationDate, sender, receiver, message);
+            transferMetrics.transferCompleted(start);
             return transactionDTO;
-
-        } else {
-            throw new UnderConstructionException("Make transfer is not possible for now. Please try again later");
-        }
-
-    }
-
-    public void checkAccountVerification(AccountDTO sender){
-        if (!sender.getOtpVerified()){
-            throw new AccountNotVerifiedException("account not verified yet.");
+        } catch (RuntimeException e) {
+            transferMetrics.transferRejected(start, e);
+            throw e;
         }
     }
 
-    private void executeBalanceAndUpdateIfRequired(BigDecimal amount, AccountDTO sender, AccountDTO receiver) {
+    private TransactionDTO transfer(BigDecimal amount, Date creationDate, AccountDTO sender, AccountDTO receiver, String message) {
 
-        if (checkSenderBalance(sender, amount)) {
-            sender.setBalance(sender.getBalance().subtract(amount));
-            receiver.setBalance(receiver.getBalance().add(amount));
-
-            AccountDTO senderAcc = accountService.retrieveById(sender.getId());
-            senderAcc.setBalance(sender.getBalance());
+        if (!underConstruction) {
+            if (sender == null || receiver == null) {
+                throw new BadRequestException("Sender or receiver can not be null");
+            }
 
-            accountService.createNewAccount(senderAcc);
+            accountIndex.prevalidate(sender.getId(), receiver.getId(), amount);
 
-            AccountDTO receiverAcc = accountService.retrieveById(receiver.getId());
-            receiverAcc.setBalance(receiver.getBalance());
+            Transaction transaction = transferEngine.transfer(amount, creationDate, sender.getId(), receiver.getId(), message);
 
-            accountService.createNewAccount(receiverAcc);
+            return transactionMapper.convertToDto(transaction);
 
         } else {
-            throw new BalanceNotSufficientException("Balance is not enough for this transaction");
+            throw new UnderConstructionException("Make transfer is not possible for now. Please try again later");
         }
 
     }
 
-    private boolean checkSenderBalance(AccountDTO sender, BigDecimal amount) {
-        return accountService.retrieveById(sender.getId()).getBalance().subtract(amount).compareTo(BigDecimal.ZERO) > 0;
-    }
-
-    private void validateAccounts(AccountDTO sender, AccountDTO receiver) {
-
-        if (sender == null || receiver == null) {
-            throw new BadRequestException("Sender or receiver can not be null");
-        }
+    @Override
+    public List<TransferResultDTO> makeBatchTransfer(List<TransferRequestDTO> transfers) {
 
-        if (sender.getId().equals(receiver.getId())) {
-            throw new BadRequestException("Sender account needs to be different from recaiver account");
+        if (underConstruction) {
+            UnderConstructionException e = new UnderConstructionException("Make transfer is not possible for now. Please try again later");
+            transferMetrics.rejected(e);
+            throw e;
         }
 
-        if (sender.getAccountStatus().equals(AccountStatus.DELETED)) {
-            throw new BadRequestException("Sender account is deleted, you can not send money from this account");
+        if (transfers == null || transfers.isEmpty()) {
+            throw new BadRequestException("Transfer list can not be empty");
         }
 
-        if (receiver.getAccountStatus().equals(AccountStatus.DELETED)) {
-            throw new BadRequestException("Receiver account is deleted, you can not send money to this account");
-        }
-
-        AccountDTO senderAccount = accountService.retrieveById(sender.getId());
-        AccountDTO receiverAccount = accountService.retrieveById(receiver.getId());
-        checkAccountVerification(senderAccount);
-        checkAccountVerification(receiverAccount);
-
-    }
-
-    private void checkAccountOwnerShip(AccountDTO sender, AccountDTO receiver) {
-
-        if ((sender.getAccountType().equals(AccountType.SAVINGS) ||
-                receiver.getAccountType().equals(AccountType.SAVINGS))
-                && !sender.getUserId().equals(receiver.getUserId())) {
-            throw new AccountOwnerShipException("When one of the account type is SAVINGS, sender and receiver has tobe same person");
+        if (transfers.size() > maxBatchSize) {
+            throw new BadRequestException("Transfer list can not contain more than " + maxBatchSize + " transfers");
         }
 
+        return transferEngine.transferAll(transfers, new Date());
     }
 
     @Override
@@ -128,13 +114,48 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     public List<TransactionDTO> retrieveLastTransactions() {
-        List<Transaction> transactionList = transactionRepository.findLastTenTransactions();
-        return transactionList.stream().map(transactionMapper::convertToDto).collect(Collectors.toList());
+        return recentTransactionFeed.latest();
     }
 
     @Override
-    public List<TransactionDTO> findTransactionListByAccountId(Long id) {
-        return transactionRepository.findTransactionListById(id).stream().map(transactionMapper::convertToDto).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TransactionDTO> findTransactionHistory(Long accountId, String cursor, int size) {
+
+        if (size <= 0) {
+            throw new BadRequestException("Page size needs to be bigger than Zero");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+
+        Date beforeDate = FIRST_PAGE_DATE;
+        Long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = cursor.split(":");
+            try {
+                beforeDate = new Date(Long.parseLong(parts[0]));
+                beforeId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new BadRequestException("Cursor is not valid");
+            }
+        }
+
+        List<Long> ids = transactionRepository.findHistoryPageIds(accountId, beforeDate, beforeId, pageSize).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new CursorPageDTO<>(new ArrayList<>(), null);
+        }
+        Map<Long, Transaction> transactions = transactionRepository.findAllWithAccountsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        List<Transaction> transactionList = ids.stream().map(transactions::get).collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (transactionList.size() == pageSize) {
+            Transaction last = transactionList.get(transactionList.size() - 1);
+            nextCursor = last.getCreationDate().getTime() + ":" + last.getId();
+        }
+
+        return new CursorPageDTO<>(transactionList.stream().map(transactionMapper::convertToDto).collect(Collectors.toList()),
+                nextCursor);
     }
 
 }
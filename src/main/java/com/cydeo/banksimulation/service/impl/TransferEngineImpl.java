@@ -0,0 +1,211 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.LockingMode;
+import com.cydeo.banksimulation.event.TransferCompletedEvent;
+import com.cydeo.banksimulation.exception.*;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.LedgerService;
+import com.cydeo.banksimulation.service.TransferEngine;
+import com.cydeo.banksimulation.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads sender and receiver once, validates them and writes both balances together with the
+ * transaction row and the matching ledger entries in a single database transaction. Both rows are locked with SELECT ... FOR UPDATE
+ * in ascending id order, so concurrent A->B and B->A transfers queue up instead of deadlocking.
+ * In OPTIMISTIC mode the rows are read without locks and the @Version column on Account rejects
+ * lost updates; the accounts are flushed before any row is inserted, so the version check runs first and
+ * {@link RetryingTransferEngine} can retry the attempt.
+ * <p>
+ * Every transfer is timed in phases: lock, validation, balance update and persist. The persist phase
+ * ends when the transaction commits, because that is where the rows are actually written.
+ */
+@Service
+public class TransferEngineImpl implements TransferEngine {
+
+    @Value("${transfer.locking-mode:PESSIMISTIC}")
+    private LockingMode lockingMode = LockingMode.PESSIMISTIC;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerService ledgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferMetrics transferMetrics;
+
+    public TransferEngineImpl(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                              LedgerService ledgerService, ApplicationEventPublisher eventPublisher,
+                              TransferMetrics transferMetrics) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerService = ledgerService;
+        this.eventPublisher = eventPublisher;
+        this.transferMetrics = transferMetrics;
+    }
+
+    @Override
+    @Transactional
+    public Transaction transfer(BigDecimal amount, Date creationDate, Long senderId, Long receiverId, String message) {
+
+        long start = System.nanoTime();
+        TransferRules.checkDifferentAccounts(senderId, receiverId);
+
+        Account first = loadAccount(Math.min(senderId, receiverId));
+        Account second = loadAccount(Math.max(senderId, receiverId));
+
+        Account sender = first.getId().equals(senderId) ? first : second;
+        Account receiver = first.getId().equals(senderId) ? second : first;
+
+        Transaction transaction = applyTransfer(amount, creationDate, sender, receiver, message,
+                transferMetrics.lockCompleted(start));
+        long persistStart = System.nanoTime();
+        checkVersions();
+        transactionRepository.save(transaction);
+        ledgerService.recordTransfers(Collections.singletonList(transaction));
+        eventPublisher.publishEvent(new TransferCompletedEvent(Collections.singletonList(transaction)));
+        afterCommit(() -> transferMetrics.persistCompleted(persistStart));
+
+        return transaction;
+    }
+
+    @Override
+    @Transactional
+    public List<TransferResultDTO> transferAll(List<TransferRequestDTO> transfers, Date creationDate) {
+
+        Map<Long, Account> accounts = loadAccounts(transfers);
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        List<Transaction> transactions = new ArrayList<>(transfers.size());
+        List<TransferResultDTO> accepted = new ArrayList<>(transfers.size());
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO request = transfers.get(i);
+            TransferResultDTO result = new TransferResultDTO(i, false, null, null);
+            results.add(result);
+            try {
+                if (request.getSenderId() == null || request.getReceiverId() == null) {
+                    throw new BadRequestException("Sender or receiver can not be null");
+                }
+                TransferRules.checkDifferentAccounts(request.getSenderId(), request.getReceiverId());
+                Transaction transaction = applyTransfer(request.getAmount(), creationDate,
+                        findLoaded(accounts, request.getSenderId()), findLoaded(accounts, request.getReceiverId()),
+                        request.getMessage(), System.nanoTime());
+                transactions.add(transaction);
+                accepted.add(result);
+            } catch (RuntimeException e) {
+                transferMetrics.rejected(e);
+                result.setMessage(e.getMessage());
+            }
+        }
+
+        long persistStart = System.nanoTime();
+        checkVersions();
+        transactionRepository.saveAll(transactions);
+        ledgerService.recordTransfers(transactions);
+        eventPublisher.publishEvent(new TransferCompletedEvent(transactions));
+        afterCommit(() -> transferMetrics.batchPersistCompleted(persistStart));
+        for (int i = 0; i < transactions.size(); i++) {
+            accepted.get(i).setSuccess(true);
+            accepted.get(i).setTransactionId(transactions.get(i).getId());
+        }
+
+        return results;
+    }
+
+    private Transaction applyTransfer(BigDecimal amount, Date creationDate, Account sender, Account receiver, String message,
+                                      long startNanos) {
+
+        TransferRules.validateAccounts(sender, receiver);
+        long balanceStart = transferMetrics.validationCompleted(startNanos);
+        executeBalanceUpdate(amount, sender, receiver);
+        transferMetrics.balanceUpdateCompleted(balanceStart);
+
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(amount);
+        transaction.setMessage(message);
+        transaction.setCreationDate(creationDate);
+        return transaction;
+    }
+
+    // Hibernate flushes inserts ahead of updates, so without this a lost optimistic race would show up as a
+    // duplicate ledger sequence instead of a version conflict; once the update ran the rows stay locked
+    private void checkVersions() {
+        if (lockingMode == LockingMode.OPTIMISTIC) {
+            accountRepository.flush();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Account loadAccount(Long accountId) {
+        Optional<Account> account = lockingMode == LockingMode.OPTIMISTIC
+                ? accountRepository.findById(accountId)
+                : accountRepository.findByIdForUpdate(accountId);
+        return account.orElseThrow(() -> new AccountNotFoundException("Account not found"));
+    }
+
+    private Map<Long, Account> loadAccounts(List<TransferRequestDTO> transfers) {
+        Set<Long> accountIds = new TreeSet<>();
+        for (TransferRequestDTO transfer : transfers) {
+            if (transfer.getSenderId() != null) {
+                accountIds.add(transfer.getSenderId());
+            }
+            if (transfer.getReceiverId() != null) {
+                accountIds.add(transfer.getReceiverId());
+            }
+        }
+        if (accountIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Account> accounts = lockingMode == LockingMode.OPTIMISTIC
+                ? accountRepository.findAllById(accountIds)
+                : accountRepository.findAllByIdForUpdate(accountIds);
+        return accounts.stream().collect(Collectors.toMap(Account::getId, Function.identity()));
+    }
+
+    private Account findLoaded(Map<Long, Account> accounts, Long accountId) {
+        Account account = accounts.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException("Account not found");
+        }
+        return account;
+    }
+
+    private void executeBalanceUpdate(BigDecimal amount, Account sender, Account receiver) {
+
+        Money transferAmount = TransferRules.checkAmount(amount);
+        Money senderBalance = TransferRules.debit(Money.of(sender.getBalance()), transferAmount);
+        Money receiverBalance = Money.of(receiver.getBalance()).plus(transferAmount);
+
+        sender.setBalance(senderBalance.toBigDecimal());
+        receiver.setBalance(receiverBalance.toBigDecimal());
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.exception.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters shared by {@link TransactionServiceImpl} and {@link TransferEngineImpl}. All meters are created
+ * up front, so the hot path only reads the clock and updates a meter it already holds.
+ */
+@Component
+public class TransferMetrics {
+
+    private final Timer transferSuccess;
+    private final Timer transferRejected;
+    private final Timer lockPhase;
+    private final Timer validationPhase;
+    private final Timer balancePhase;
+    private final Timer persistPhase;
+    private final Timer batchPersistPhase;
+    private final Map<Class<? extends RuntimeException>, Counter> rejections = new LinkedHashMap<>();
+    private final Counter otherRejections;
+
+    public TransferMetrics(MeterRegistry meterRegistry) {
+        this.transferSuccess = transferTimer(meterRegistry, "success");
+        this.transferRejected = transferTimer(meterRegistry, "rejected");
+        this.lockPhase = phaseTimer(meterRegistry, "lock");
+        this.validationPhase = phaseTimer(meterRegistry, "validation");
+        this.balancePhase = phaseTimer(meterRegistry, "balance_update");
+        this.persistPhase = phaseTimer(meterRegistry, "persist");
+        this.batchPersistPhase = phaseTimer(meterRegistry, "batch_persist");
+        rejections.put(BalanceNotSufficientException.class, rejectionCounter(meterRegistry, "insufficient_balance"));
+        rejections.put(AccountNotVerifiedException.class, rejectionCounter(meterRegistry, "not_verified"));
+        rejections.put(AccountOwnerShipException.class, rejectionCounter(meterRegistry, "ownership"));
+        rejections.put(UnderConstructionException.class, rejectionCounter(meterRegistry, "under_construction"));
+        rejections.put(AccountNotFoundException.class, rejectionCounter(meterRegistry, "account_not_found"));
+        rejections.put(BadRequestException.class, rejectionCounter(meterRegistry, "bad_request"));
+        this.otherRejections = rejectionCounter(meterRegistry, "other");
+    }
+
+    public void transferCompleted(long startNanos) {
+        transferSuccess.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void transferRejected(long startNanos, RuntimeException e) {
+        transferRejected.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        rejected(e);
+    }
+
+    public void rejected(RuntimeException e) {
+        rejections.getOrDefault(e.getClass(), otherRejections).increment();
+    }
+
+    public long lockCompleted(long startNanos) {
+        return record(lockPhase, startNanos);
+    }
+
+    public long validationCompleted(long startNanos) {
+        return record(validationPhase, startNanos);
+    }
+
+    public long balanceUpdateCompleted(long startNanos) {
+        return record(balancePhase, startNanos);
+    }
+
+    public long persistCompleted(long startNanos) {
+        return record(persistPhase, startNanos);
+    }
+
+    public long batchPersistCompleted(long startNanos) {
+        return record(batchPersistPhase, startNanos);
+    }
+
+    // returns the end of this phase, which is the start of the next one
+    private static long record(Timer timer, long startNanos) {
+        long now = System.nanoTime();
+        timer.record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    private static Timer transferTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("transfer")
+                .description("Single transfers from the service call to the committed result")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("transfer.phase")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("transfer.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
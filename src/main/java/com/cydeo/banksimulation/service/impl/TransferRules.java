@@ -0,0 +1,79 @@
+package com.cydeo.banksimulation.service.impl;
+
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.exception.AccountNotVerifiedException;
+import com.cydeo.banksimulation.exception.AccountOwnerShipException;
+import com.cydeo.banksimulation.exception.BadRequestException;
+import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
+import com.cydeo.banksimulation.util.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Acceptance rules shared by the transfer engines, checked in this order: different accounts, account
+ * status, verification, ownership, amount and sender balance.
+ */
+final class TransferRules {
+
+    private TransferRules() {
+    }
+
+    static void checkDifferentAccounts(Long senderId, Long receiverId) {
+        if (senderId.equals(receiverId)) {
+            throw new BadRequestException("Sender account needs to be different from recaiver account");
+        }
+    }
+
+    static void validateAccounts(Account sender, Account receiver) {
+
+        if (sender.getAccountStatus().equals(AccountStatus.DELETED)) {
+            throw new BadRequestException("Sender account is deleted, you can not send money from this account");
+        }
+
+        if (receiver.getAccountStatus().equals(AccountStatus.DELETED)) {
+            throw new BadRequestException("Receiver account is deleted, you can not send money to this account");
+        }
+
+        checkAccountVerification(sender);
+        checkAccountVerification(receiver);
+
+        checkAccountOwnerShip(sender, receiver);
+    }
+
+    static Money checkAmount(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BadRequestException("Amount needs to be bigger than Zero");
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            throw new BadRequestException("Amount can not have more than 2 decimal places");
+        }
+    }
+
+    static Money debit(Money balance, Money amount) {
+        Money remaining = balance.minus(amount);
+        if (!remaining.isPositive()) {
+            throw new BalanceNotSufficientException("Balance is not enough for this transaction");
+        }
+        return remaining;
+    }
+
+    private static void checkAccountVerification(Account account) {
+        if (!Boolean.TRUE.equals(account.getOtpVerified())) {
+            throw new AccountNotVerifiedException("account not verified yet.");
+        }
+    }
+
+    private static void checkAccountOwnerShip(Account sender, Account receiver) {
+
+        if ((sender.getAccountType().equals(AccountType.SAVINGS) ||
+                receiver.getAccountType().equals(AccountType.SAVINGS))
+                && !sender.getUserId().equals(receiver.getUserId())) {
+            throw new AccountOwnerShipException("When one of the account type is SAVINGS, sender and receiver has tobe same person");
+        }
+
+    }
+}
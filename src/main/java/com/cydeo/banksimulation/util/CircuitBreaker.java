@@ -0,0 +1,73 @@
+package com.cydeo.banksimulation.util;
+
+import com.cydeo.banksimulation.enums.CircuitState;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the circuit opens
+ * and calls are rejected without touching the remote side. Once {@code openMillis} have passed a single
+ * trial call is let through; its outcome closes the circuit again or re-opens it. A trial that never
+ * reports back is given up after another {@code openMillis} and the next call becomes the trial.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private final AtomicReference<CircuitState> state = new AtomicReference<>(CircuitState.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    public boolean tryAcquire() {
+        CircuitState current = state.get();
+        if (current == CircuitState.CLOSED) {
+            return true;
+        }
+        // openedAt is moved to the start of the trial, so only one caller per period wins it
+        long since = openedAt.get();
+        long now = clock.getAsLong();
+        if (now - since >= openMillis && openedAt.compareAndSet(since, now)) {
+            state.compareAndSet(current, CircuitState.HALF_OPEN);
+            return true;
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(CircuitState.CLOSED);
+    }
+
+    public void onFailure() {
+        if (state.get() == CircuitState.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt.set(clock.getAsLong());
+            state.set(CircuitState.OPEN);
+        }
+    }
+
+    public CircuitState getState() {
+        return state.get();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+}
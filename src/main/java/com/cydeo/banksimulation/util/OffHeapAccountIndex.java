@@ -0,0 +1,288 @@
+package com.cydeo.banksimulation.util;
+
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open addressing hash table from account id to status, type, owner, verification and balance, stored as
+ * one direct buffer per field. An entry costs 25 bytes outside the heap and no objects, so the heap and
+ * the garbage collector do not see the number of accounts.
+ * <p>
+ * Writers take a write lock. Readers read optimistically and retry under the read lock only when a write
+ * overlapped, so lookups do not contend with each other. Entries can not be removed; id 0 marks a free
+ * slot and is not a valid key.
+ */
+public final class OffHeapAccountIndex {
+
+    private static final int MIN_CAPACITY = 16;
+    // the id column of the largest table still fits into a single buffer
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final int BYTES_PER_SLOT = 8 + 8 + 8 + 1;
+    private static final long NULL_USER = Long.MIN_VALUE;
+
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+    private static final AccountType[] TYPES = AccountType.values();
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+    private volatile int size;
+
+    public OffHeapAccountIndex(int expectedAccounts) {
+        if (expectedAccounts < 0) {
+            throw new IllegalArgumentException("Expected accounts can not be negative: " + expectedAccounts);
+        }
+        this.table = new Table(capacityFor(expectedAccounts));
+    }
+
+    /**
+     * Adds the account or replaces all of its fields.
+     */
+    public void put(long accountId, AccountStatus status, AccountType type, Long userId, Boolean otpVerified,
+                    long balanceMinor) {
+        write(accountId, status, type, userId, otpVerified, balanceMinor, true);
+    }
+
+    /**
+     * Adds the account unless it is indexed already, an existing entry is never replaced.
+     */
+    public boolean putIfAbsent(long accountId, AccountStatus status, AccountType type, Long userId,
+                               Boolean otpVerified, long balanceMinor) {
+        return write(accountId, status, type, userId, otpVerified, balanceMinor, false);
+    }
+
+    /**
+     * Replaces the balance of an indexed account, returns false when the account is not indexed.
+     */
+    public boolean updateBalance(long accountId, long balanceMinor) {
+        checkId(accountId);
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int slot = current.find(accountId);
+            if (slot < 0) {
+                return false;
+            }
+            current.balances.putLong(slot << 3, balanceMinor);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies the account's fields into the given entry, returns false when the account is not indexed.
+     */
+    public boolean read(long accountId, Entry entry) {
+        checkId(accountId);
+        long stamp = lock.tryOptimisticRead();
+        boolean locked = false;
+        try {
+            while (true) {
+                Table current = table;
+                int slot = current.find(accountId);
+                byte attributes = 0;
+                long userId = 0;
+                long balanceMinor = 0;
+                if (slot >= 0) {
+                    attributes = current.attributes.get(slot);
+                    userId = current.userIds.getLong(slot << 3);
+                    balanceMinor = current.balances.getLong(slot << 3);
+                }
+                // values read while a write was running may be torn, they are only used once validated
+                if (locked || lock.validate(stamp)) {
+                    if (slot < 0) {
+                        return false;
+                    }
+                    entry.fill(accountId, attributes, userId, balanceMinor);
+                    return true;
+                }
+                stamp = lock.readLock();
+                locked = true;
+            }
+        } finally {
+            if (locked) {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return table.capacity;
+    }
+
+    public long memoryBytes() {
+        return (long) table.capacity * BYTES_PER_SLOT;
+    }
+
+    private boolean write(long accountId, AccountStatus status, AccountType type, Long userId, Boolean otpVerified,
+                          long balanceMinor, boolean replace) {
+        checkId(accountId);
+        byte attributes = encode(status, type, otpVerified);
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int slot = current.find(accountId);
+            if (slot >= 0 && !replace) {
+                return false;
+            }
+            if (slot < 0) {
+                if (size + 1 > current.threshold) {
+                    current = grow(current);
+                    slot = current.find(accountId);
+                }
+                slot = -slot - 1;
+                current.ids.putLong(slot << 3, accountId);
+                size = size + 1;
+            }
+            current.attributes.put(slot, attributes);
+            current.userIds.putLong(slot << 3, userId == null ? NULL_USER : userId);
+            current.balances.putLong(slot << 3, balanceMinor);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Table grow(Table current) {
+        if (current.capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Account index can not hold more than " + current.threshold + " accounts");
+        }
+        Table grown = new Table(current.capacity << 1);
+        for (int slot = 0; slot < current.capacity; slot++) {
+            long accountId = current.ids.getLong(slot << 3);
+            if (accountId != 0) {
+                int target = -grown.find(accountId) - 1;
+                grown.ids.putLong(target << 3, accountId);
+                grown.attributes.put(target, current.attributes.get(slot));
+                grown.userIds.putLong(target << 3, current.userIds.getLong(slot << 3));
+                grown.balances.putLong(target << 3, current.balances.getLong(slot << 3));
+            }
+        }
+        // the old buffers are released once the collector finds them unreachable
+        table = grown;
+        return grown;
+    }
+
+    private static int capacityFor(int expectedAccounts) {
+        long needed = (long) expectedAccounts * 4 / 3 + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkId(long accountId) {
+        if (accountId <= 0) {
+            throw new IllegalArgumentException("Account id needs to be positive: " + accountId);
+        }
+    }
+
+    // bits 0-2 status, 3-5 type, 6-7 verification; 0 stands for null in each of them
+    private static byte encode(AccountStatus status, AccountType type, Boolean otpVerified) {
+        int statusCode = status == null ? 0 : status.ordinal() + 1;
+        int typeCode = type == null ? 0 : type.ordinal() + 1;
+        int verifiedCode = otpVerified == null ? 0 : otpVerified ? 2 : 1;
+        return (byte) (statusCode | typeCode << 3 | verifiedCode << 6);
+    }
+
+    private static final class Table {
+
+        private final int capacity;
+        private final int threshold;
+        private final int shift;
+        private final ByteBuffer ids;
+        private final ByteBuffer attributes;
+        private final ByteBuffer userIds;
+        private final ByteBuffer balances;
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            this.threshold = capacity / 4 * 3;
+            this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+            this.ids = allocate(capacity * 8);
+            this.attributes = allocate(capacity);
+            this.userIds = allocate(capacity * 8);
+            this.balances = allocate(capacity * 8);
+        }
+
+        // slot of the account, or -(free slot) - 1 where it would go; probing stops after a full round
+        // because a reader racing a writer may see a table without free slots
+        int find(long accountId) {
+            int mask = capacity - 1;
+            int slot = (int) ((accountId * 0x9E3779B97F4A7C15L) >>> shift);
+            for (int probes = 0; probes < capacity; probes++) {
+                long id = ids.getLong(slot << 3);
+                if (id == accountId) {
+                    return slot;
+                }
+                if (id == 0) {
+                    return -slot - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -capacity - 1;
+        }
+
+        private static ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Reusable holder the fields of one account are copied into.
+     */
+    public static final class Entry {
+
+        private long accountId;
+        private AccountStatus accountStatus;
+        private AccountType accountType;
+        private Long userId;
+        private Boolean otpVerified;
+        private long balanceMinor;
+
+        private void fill(long accountId, byte attributes, long userId, long balanceMinor) {
+            int statusCode = attributes & 0x7;
+            int typeCode = attributes >> 3 & 0x7;
+            int verifiedCode = attributes >> 6 & 0x3;
+            this.accountId = accountId;
+            this.accountStatus = statusCode == 0 ? null : STATUSES[statusCode - 1];
+            this.accountType = typeCode == 0 ? null : TYPES[typeCode - 1];
+            this.userId = userId == NULL_USER ? null : userId;
+            this.otpVerified = verifiedCode == 0 ? null : verifiedCode == 2;
+            this.balanceMinor = balanceMinor;
+        }
+
+        public long getAccountId() {
+            return accountId;
+        }
+
+        public AccountStatus getAccountStatus() {
+            return accountStatus;
+        }
+
+        public AccountType getAccountType() {
+            return accountType;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Boolean getOtpVerified() {
+            return otpVerified;
+        }
+
+        public long getBalanceMinor() {
+            return balanceMinor;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.cydeo.banksimulation.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted transfers, kept in memory-mapped segment files named after the sequence of
+ * their first record.
+ * <p>
+ * A record is {@code length, crc32} followed by the payload {@code sequence, senderId, receiverId,
+ * amountMinor, createdAt, messageLength, message}. Segments are preallocated with zeros, so a zero length
+ * marks the end of a segment. Appends only write into the mapping; a flusher thread forces everything
+ * written so far in one call and then releases all appenders waiting in {@link #awaitDurable}, so
+ * concurrent transfers share one fsync (group commit).
+ * <p>
+ * On open the last segment is scanned and a torn record at its tail, left by a crash in the middle of an
+ * append, is cut off. Records are read back with {@link #read}, which only returns durable records.
+ */
+public final class TransferJournal implements Closeable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 5 * Long.BYTES + Short.BYTES;
+    private static final int NULL_MESSAGE = 0xFFFF;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final ByteBuffer payload;
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+
+    private Segment active;
+    private long lastSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean closed;
+
+    // position of the single reader, kept so sequential reads do not rescan segments
+    private Segment readSegment;
+    private int readPosition;
+    private long readSequence = -1;
+
+    public TransferJournal(Path directory, int segmentSize, long firstSequence) throws IOException {
+        if (segmentSize < HEADER_SIZE + FIXED_PAYLOAD_SIZE + 1024) {
+            throw new IllegalArgumentException("Journal segment size is too small: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.payload = ByteBuffer.allocate(FIXED_PAYLOAD_SIZE + NULL_MESSAGE);
+        recover(firstSequence);
+        this.flusher = new Thread(this::flushLoop, "transfer-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends a transfer and returns its sequence. The record is not durable before
+     * {@link #awaitDurable} returns for that sequence.
+     */
+    public long append(long senderId, long receiverId, long amountMinor, long createdAt, String message) {
+        byte[] messageBytes = message == null ? null : message.getBytes(StandardCharsets.UTF_8);
+        int messageLength = messageBytes == null ? 0 : messageBytes.length;
+        int payloadSize = FIXED_PAYLOAD_SIZE + messageLength;
+        if (messageLength >= NULL_MESSAGE || HEADER_SIZE + payloadSize > segmentSize) {
+            throw new IllegalArgumentException("Transfer message is too long for the journal");
+        }
+
+        lock.lock();
+        try {
+            checkUsable();
+            if (active.position + HEADER_SIZE + payloadSize > segmentSize) {
+                roll();
+            }
+            long sequence = lastSequence + 1;
+            payload.clear();
+            payload.putLong(sequence)
+                    .putLong(senderId)
+                    .putLong(receiverId)
+                    .putLong(amountMinor)
+                    .putLong(createdAt)
+                    .putShort((short) (messageBytes == null ? NULL_MESSAGE : messageLength));
+            if (messageBytes != null) {
+                payload.put(messageBytes);
+            }
+            payload.flip();
+            crc.reset();
+            crc.update(payload.duplicate());
+
+            ByteBuffer buffer = active.buffer;
+            int position = active.position;
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.position(position + HEADER_SIZE);
+            buffer.put(payload);
+            // the length goes in last, so a record is never visible with a partial payload
+            buffer.putInt(position, payloadSize);
+            active.position = position + HEADER_SIZE + payloadSize;
+            active.lastSequence = sequence;
+            lastSequence = sequence;
+            written.signal();
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Transfer could not be written to the journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                checkUsable();
+                durable.awaitUninterruptibly();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal could not be synced", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code max} durable records that follow {@code afterSequence}.
+     */
+    public List<JournalRecord> read(long afterSequence, int max) {
+        long upTo;
+        lock.lock();
+        try {
+            upTo = Math.min(durableSequence, afterSequence + max);
+        } finally {
+            lock.unlock();
+        }
+        List<JournalRecord> records = new ArrayList<>();
+        if (upTo <= afterSequence) {
+            return records;
+        }
+        if (readSequence != afterSequence) {
+            seek(afterSequence);
+        }
+        while (readSequence < upTo) {
+            if (readPosition + HEADER_SIZE > segmentSize || readSegment.buffer.getInt(readPosition) == 0) {
+                readSegment = segments.get(segments.indexOf(readSegment) + 1);
+                readPosition = 0;
+            }
+            JournalRecord record = decode(readSegment.buffer, readPosition);
+            readPosition += HEADER_SIZE + readSegment.buffer.getInt(readPosition);
+            readSequence = record.getSequence();
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Deletes the segments whose records all have a sequence up to {@code sequence}. The active segment is
+     * always kept.
+     */
+    public void deleteUpTo(long sequence) throws IOException {
+        while (segments.size() > 1 && segments.get(1).firstSequence - 1 <= sequence) {
+            Segment segment = segments.get(0);
+            if (segment == readSegment) {
+                readSequence = -1;
+            }
+            segments.remove(0);
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            written.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            List<Segment> dirty;
+            lock.lock();
+            try {
+                while (lastSequence == durableSequence && !closed) {
+                    written.awaitUninterruptibly();
+                }
+                if (lastSequence == durableSequence) {
+                    return;
+                }
+                target = lastSequence;
+                dirty = new ArrayList<>();
+                for (Segment segment : segments) {
+                    if (segment.lastSequence > durableSequence) {
+                        dirty.add(segment);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                for (Segment segment : dirty) {
+                    segment.buffer.force();
+                }
+            } catch (Exception e) {
+                error = e instanceof IOException ? (IOException) e : new IOException(e);
+            }
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    // after a failed sync the page cache state is unknown, nothing more is accepted
+                    failure = error;
+                } else {
+                    durableSequence = target;
+                }
+                durable.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+    }
+
+    private void recover(long firstSequence) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+
+        long expected = -1;
+        for (int i = 0; i < paths.size(); i++) {
+            Segment segment = open(paths.get(i), parseFirstSequence(paths.get(i)));
+            if (expected >= 0 && segment.firstSequence != expected) {
+                throw new IllegalStateException("Journal segment " + segment.path + " does not follow the previous segment");
+            }
+            scan(segment, i == paths.size() - 1);
+            segments.add(segment);
+            expected = segment.lastSequence + 1;
+        }
+
+        if (segments.isEmpty()) {
+            active = open(directory.resolve(segmentName(firstSequence)), firstSequence);
+            segments.add(active);
+        } else {
+            active = segments.get(segments.size() - 1);
+        }
+        lastSequence = active.lastSequence;
+        durableSequence = lastSequence;
+    }
+
+    private void scan(Segment segment, boolean last) {
+        ByteBuffer buffer = segment.buffer;
+        int position = 0;
+        long sequence = segment.firstSequence - 1;
+        while (position + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < FIXED_PAYLOAD_SIZE || position + HEADER_SIZE + length > segmentSize
+                    || !checksumMatches(buffer, position, length) || buffer.getLong(position + HEADER_SIZE) != sequence + 1) {
+                if (!last) {
+                    throw new IllegalStateException("Journal segment " + segment.path + " is corrupt at offset " + position);
+                }
+                for (int i = position; i < segmentSize; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                segment.buffer.force();
+                break;
+            }
+            sequence++;
+            position += HEADER_SIZE + length;
+        }
+        segment.position = position;
+        segment.lastSequence = sequence;
+    }
+
+    private boolean checksumMatches(ByteBuffer buffer, int position, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(position + HEADER_SIZE).limit(position + HEADER_SIZE + length);
+        crc.reset();
+        crc.update(slice);
+        return (int) crc.getValue() == buffer.getInt(position + 4);
+    }
+
+    private void seek(long afterSequence) {
+        Segment segment = segments.get(0);
+        for (Segment candidate : segments) {
+            if (candidate.firstSequence <= afterSequence + 1) {
+                segment = candidate;
+            }
+        }
+        if (segment.firstSequence > afterSequence + 1) {
+            throw new IllegalStateException("Journal no longer contains the records after " + afterSequence);
+        }
+        int position = 0;
+        long sequence = segment.firstSequence - 1;
+        while (sequence < afterSequence) {
+            position += HEADER_SIZE + segment.buffer.getInt(position);
+            sequence++;
+        }
+        readSegment = segment;
+        readPosition = position;
+        readSequence = afterSequence;
+    }
+
+    private void roll() throws IOException {
+        active = open(directory.resolve(segmentName(lastSequence + 1)), lastSequence + 1);
+        segments.add(active);
+    }
+
+    private Segment open(Path path, long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segment(path, firstSequence, channel, buffer);
+    }
+
+    private static JournalRecord decode(ByteBuffer buffer, int position) {
+        int offset = position + HEADER_SIZE;
+        int messageLength = Short.toUnsignedInt(buffer.getShort(offset + 5 * Long.BYTES));
+        String message = null;
+        if (messageLength != NULL_MESSAGE) {
+            byte[] bytes = new byte[messageLength];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(offset + FIXED_PAYLOAD_SIZE);
+            slice.get(bytes);
+            message = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new JournalRecord(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                buffer.getLong(offset + 24), buffer.getLong(offset + 32), message);
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    private static long parseFirstSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final long firstSequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long lastSequence;
+
+        Segment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.lastSequence = firstSequence - 1;
+        }
+    }
+
+    public static final class JournalRecord {
+
+        private final long sequence;
+        private final long senderId;
+        private final long receiverId;
+        private final long amountMinor;
+        private final long createdAt;
+        private final String message;
+
+        public JournalRecord(long sequence, long senderId, long receiverId, long amountMinor, long createdAt,
+                             String message) {
+            this.sequence = sequence;
+            this.senderId = senderId;
+            this.receiverId = receiverId;
+            this.amountMinor = amountMinor;
+            this.createdAt = createdAt;
+            this.message = message;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getSenderId() {
+            return senderId;
+        }
+
+        public long getReceiverId() {
+            return receiverId;
+        }
+
+        public long getAmountMinor() {
+            return amountMinor;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
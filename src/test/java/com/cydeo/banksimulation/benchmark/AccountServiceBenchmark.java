@@ -0,0 +1,47 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.CursorPageDTO;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.MapperStrategy;
+import com.cydeo.banksimulation.mapper.AccountMapper;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.AccountService;
+import com.cydeo.banksimulation.service.impl.AccountServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountServiceBenchmark {
+
+    @Param({"10000"})
+    public int accountCount;
+
+    private AccountService accountService;
+
+    @Setup
+    public void setUp() {
+        AccountRepository accountRepository = BenchmarkFixtures.accounts().as(AccountRepository.class);
+        for (int i = 0; i < accountCount; i++) {
+            AccountStatus accountStatus = i % 2 == 0 ? AccountStatus.ACTIVE : AccountStatus.DELETED;
+            accountRepository.save(BenchmarkFixtures.prepareAccount(new BigDecimal(100), accountStatus));
+        }
+        accountService = new AccountServiceImpl(accountRepository,
+                new AccountMapper(new ModelMapper(), MapperStrategy.MANUAL, new SimpleMeterRegistry()), null, null, null, event -> {});
+    }
+
+    @Benchmark
+    public CursorPageDTO<AccountDTO> listAllActiveAccount() {
+        return accountService.listAllActiveAccount(null, 50);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.LedgerEntry;
+import com.cydeo.banksimulation.entity.SmsOutbox;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static InMemoryRepository<Account> accounts() {
+        InMemoryRepository<Account> accounts = new InMemoryRepository<>(Account::getId, Account::setId);
+        accounts.query("findByIdForUpdate", args -> Optional.ofNullable(accounts.row((Long) args[0])))
+                .query("findAllByIdForUpdate", args -> ((Collection<?>) args[0]).stream()
+                        .map(id -> accounts.row((Long) id))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .query("findPageByAccountStatusAfter", args -> accounts.rowsAfter((Long) args[1]).stream()
+                        .filter(account -> account.getAccountStatus() == args[0])
+                        .limit(((Pageable) args[2]).getPageSize())
+                        .map(BenchmarkFixtures::toDto)
+                        .collect(Collectors.toList()));
+        return accounts;
+    }
+
+    static InMemoryRepository<Transaction> transactions() {
+        return new InMemoryRepository<>(Transaction::getId, Transaction::setId);
+    }
+
+    private static AccountDTO toDto(Account account) {
+        return new AccountDTO(account.getId(), account.getAccountType(), account.getAccountStatus(),
+                account.getCreationDate(), account.getUserId(), account.getBalance(),
+                account.getOtpVerified(), account.getPhoneNumber());
+    }
+
+    static InMemoryRepository<LedgerEntry> ledgerEntries() {
+        return new InMemoryRepository<>(LedgerEntry::getId, LedgerEntry::setId);
+    }
+
+    static InMemoryRepository<SmsOutbox> smsOutbox() {
+        return new InMemoryRepository<>(SmsOutbox::getId, SmsOutbox::setId);
+    }
+
+    static Account prepareAccount(BigDecimal balance, AccountStatus accountStatus) {
+        Account account = new Account();
+        account.setBalance(balance);
+        account.setAccountStatus(accountStatus);
+        account.setOtpVerified(true);
+        account.setUserId(123L);
+        account.setPhoneNumber("121165465");
+        account.setCreationDate(new Date());
+        account.setAccountType(AccountType.CHECKINGS);
+        return account;
+    }
+
+}
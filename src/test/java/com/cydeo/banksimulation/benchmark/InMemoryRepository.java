@@ -0,0 +1,112 @@
+package com.cydeo.banksimulation.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Map backed stand-in for a Spring Data repository, so benchmarks measure the service code
+ * instead of a database. CRUD methods are handled generically, derived queries are registered
+ * per method name with {@link #query(String, Function)}.
+ */
+public class InMemoryRepository<T> implements InvocationHandler {
+
+    private final ConcurrentNavigableMap<Long, T> rows = new ConcurrentSkipListMap<>();
+    private final Map<String, Function<Object[], Object>> queries = new HashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Function<T, Long> idGetter;
+    private final BiConsumer<T, Long> idSetter;
+
+    public InMemoryRepository(Function<T, Long> idGetter, BiConsumer<T, Long> idSetter) {
+        this.idGetter = idGetter;
+        this.idSetter = idSetter;
+    }
+
+    public InMemoryRepository<T> query(String methodName, Function<Object[], Object> handler) {
+        queries.put(methodName, handler);
+        return this;
+    }
+
+    public T row(Long id) {
+        return rows.get(id);
+    }
+
+    public Collection<T> rows() {
+        return rows.values();
+    }
+
+    public Collection<T> rowsAfter(Long id) {
+        return rows.tailMap(id, false).values();
+    }
+
+    public void clear() {
+        rows.clear();
+    }
+
+    public <R> R as(Class<R> repositoryType) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType}, this));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, args);
+        }
+
+        Function<Object[], Object> query = queries.get(method.getName());
+        if (query != null) {
+            return query.apply(args);
+        }
+
+        switch (method.getName()) {
+            case "save":
+                return save((T) args[0]);
+            case "saveAll":
+                List<T> saved = new ArrayList<>();
+                for (T entity : (Iterable<T>) args[0]) {
+                    saved.add(save(entity));
+                }
+                return saved;
+            case "findById":
+                return Optional.ofNullable(rows.get((Long) args[0]));
+            case "getById":
+                return rows.get((Long) args[0]);
+            case "findAll":
+                if (args == null || args.length == 0) {
+                    return new ArrayList<>(rows.values());
+                }
+                break;
+            case "findAllById":
+                List<T> found = new ArrayList<>();
+                for (Long id : (Iterable<Long>) args[0]) {
+                    T entity = rows.get(id);
+                    if (entity != null) {
+                        found.add(entity);
+                    }
+                }
+                return found;
+            case "count":
+                return (long) rows.size();
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException(method.getName() + " is not supported by the in-memory repository");
+    }
+
+    private T save(T entity) {
+        if (idGetter.apply(entity) == null) {
+            idSetter.accept(entity, sequence.incrementAndGet());
+        }
+        rows.put(idGetter.apply(entity), entity);
+        return entity;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.TransactionDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.enums.MapperStrategy;
+import com.cydeo.banksimulation.mapper.AccountMapper;
+import com.cydeo.banksimulation.mapper.TransactionMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"MANUAL", "MODEL_MAPPER"})
+    public MapperStrategy mapperStrategy;
+
+    @Param({"1", "10000"})
+    public int size;
+
+    private AccountMapper accountMapper;
+    private TransactionMapper transactionMapper;
+    private List<Account> accounts;
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setUp() {
+        ModelMapper modelMapper = new ModelMapper();
+        accountMapper = new AccountMapper(modelMapper, mapperStrategy, new SimpleMeterRegistry());
+        transactionMapper = new TransactionMapper(modelMapper, accountMapper, mapperStrategy, new SimpleMeterRegistry());
+
+        accounts = new ArrayList<>(size);
+        transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Account account = prepareAccount((long) i);
+            accounts.add(account);
+            Transaction transaction = new Transaction();
+            transaction.setSender(account);
+            transaction.setReceiver(account);
+            transaction.setAmount(BigDecimal.TEN);
+            transaction.setMessage("benchmark");
+            transaction.setCreationDate(new Date());
+            transactions.add(transaction);
+        }
+    }
+
+    @Benchmark
+    public List<AccountDTO> accountsToDto() {
+        return accounts.stream().map(accountMapper::convertToDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<TransactionDTO> transactionsToDto() {
+        return transactions.stream().map(transactionMapper::convertToDto).collect(Collectors.toList());
+    }
+
+    private Account prepareAccount(Long id) {
+        Account account = new Account();
+        account.setId(id);
+        account.setBalance(new BigDecimal(250));
+        account.setAccountStatus(AccountStatus.ACTIVE);
+        account.setOtpVerified(true);
+        account.setUserId(123L);
+        account.setPhoneNumber("121165465");
+        account.setCreationDate(new Date());
+        account.setAccountType(AccountType.CHECKINGS);
+        return account;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.util.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance check and update done for every transfer, once on BigDecimal as the engine used to do it
+ * and once on long cents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private BigDecimal senderBalance;
+    private BigDecimal receiverBalance;
+    private BigDecimal amount;
+
+    private Money senderMoney;
+    private Money receiverMoney;
+    private Money amountMoney;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        senderBalance = new BigDecimal("1000000000.00");
+        receiverBalance = new BigDecimal("250.00");
+        amount = new BigDecimal("1.25");
+        senderMoney = Money.of(senderBalance);
+        receiverMoney = Money.of(receiverBalance);
+        amountMoney = Money.of(amount);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTransfer() {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0 || senderBalance.subtract(amount).compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalStateException();
+        }
+        senderBalance = senderBalance.subtract(amount);
+        receiverBalance = receiverBalance.add(amount);
+        return senderBalance;
+    }
+
+    @Benchmark
+    public Money moneyTransfer() {
+        Money remaining = senderMoney.minus(amountMoney);
+        if (!amountMoney.isPositive() || !remaining.isPositive()) {
+            throw new IllegalStateException();
+        }
+        senderMoney = remaining;
+        receiverMoney = receiverMoney.plus(amountMoney);
+        return senderMoney;
+    }
+
+    @Benchmark
+    public BigDecimal moneyTransferWithBoundaryConversion() {
+        Money transferAmount = Money.of(amount);
+        Money remaining = Money.of(senderBalance).minus(transferAmount);
+        if (!transferAmount.isPositive() || !remaining.isPositive()) {
+            throw new IllegalStateException();
+        }
+        senderBalance = remaining.toBigDecimal();
+        receiverBalance = Money.of(receiverBalance).plus(transferAmount).toBigDecimal();
+        return senderBalance;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.service.impl.OtpCodeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old per call Random with a single shared SecureRandom and the block based generator,
+ * with several threads issuing codes at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class OtpCodeGeneratorBenchmark {
+
+    @Param({"64", "256"})
+    public int blockSize;
+
+    private SecureRandom sharedSecureRandom;
+    private OtpCodeGenerator otpCodeGenerator;
+
+    @Setup
+    public void setUp() {
+        sharedSecureRandom = new SecureRandom();
+        otpCodeGenerator = new OtpCodeGenerator(blockSize);
+    }
+
+    @Benchmark
+    public int newRandomPerCall() {
+        return new Random().nextInt(900000) + 100000;
+    }
+
+    @Benchmark
+    public int sharedSecureRandom() {
+        return sharedSecureRandom.nextInt(900000) + 100000;
+    }
+
+    @Benchmark
+    public int otpCodeGenerator() {
+        return otpCodeGenerator.nextCode();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.dto.OtpDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.SmsOutbox;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.SmsOutboxRepository;
+import com.cydeo.banksimulation.service.OtpService;
+import com.cydeo.banksimulation.service.impl.InMemoryOtpStore;
+import com.cydeo.banksimulation.service.impl.OtpCodeGenerator;
+import com.cydeo.banksimulation.service.impl.OtpServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OtpServiceBenchmark {
+
+    private InMemoryRepository<SmsOutbox> outboxRows;
+    private OtpService otpService;
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        AccountRepository accountRepository = BenchmarkFixtures.accounts().as(AccountRepository.class);
+        account = accountRepository.save(BenchmarkFixtures.prepareAccount(new BigDecimal(100), AccountStatus.ACTIVE));
+        outboxRows = BenchmarkFixtures.smsOutbox();
+        otpService = new OtpServiceImpl(new InMemoryOtpStore(300, 100000), accountRepository,
+                outboxRows.as(SmsOutboxRepository.class), new OtpCodeGenerator(256), event -> {},
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearOutbox() {
+        outboxRows.clear();
+    }
+
+    @Benchmark
+    public OtpDTO createOtpSendSms() {
+        return otpService.createOtpSendSms(account);
+    }
+
+    @Benchmark
+    public OtpDTO createAndConfirmOtp() {
+        OtpDTO otpDTO = otpService.createOtpSendSms(account);
+        otpService.confirmOtp(otpDTO.getOtpCode(), otpDTO.getOtpId());
+        return otpDTO;
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.impl.ShardedTransferEngine;
+import com.cydeo.banksimulation.service.impl.TransferMetrics;
+import com.cydeo.banksimulation.util.TransferJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Batches of transfers through the sharded engine, journal included. Every batch shares one journal sync,
+ * so the score times {@link #BATCH_SIZE} is the number of transfers, and twice that the number of balance
+ * updates, per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ShardedTransferBenchmark {
+
+    private static final int ACCOUNT_COUNT = 10_000;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"1", "4", "8"})
+    private int shards;
+
+    private Path directory;
+    private TransferJournal journal;
+    private ShardedTransferEngine engine;
+    private long[] accountIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        AccountRepository accountRepository = BenchmarkFixtures.accounts().as(AccountRepository.class);
+        accountIds = new long[ACCOUNT_COUNT];
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountIds[i] = accountRepository.save(
+                    BenchmarkFixtures.prepareAccount(new BigDecimal(1_000_000_000), AccountStatus.ACTIVE)).getId();
+        }
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new TransferJournal(directory, 64 * 1024 * 1024, 1);
+        engine = new ShardedTransferEngine(journal, null, accountRepository,
+                new TransferMetrics(new SimpleMeterRegistry()), shards, 65536, 5000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void releaseSegments() throws IOException {
+        journal.deleteUpTo(journal.getDurableSequence());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        engine.stop();
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Batch {
+
+        private final Random random = new Random();
+        private final List<TransferRequestDTO> transfers = new ArrayList<>(BATCH_SIZE);
+
+        @Setup(Level.Invocation)
+        public void fill(ShardedTransferBenchmark benchmark) {
+            transfers.clear();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                int sender = random.nextInt(ACCOUNT_COUNT);
+                int receiver = (sender + 1 + random.nextInt(ACCOUNT_COUNT - 1)) % ACCOUNT_COUNT;
+                transfers.add(new TransferRequestDTO(benchmark.accountIds[sender], benchmark.accountIds[receiver],
+                        BigDecimal.ONE, "benchmark"));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TransferResultDTO> transferBatch(Batch batch) {
+        return engine.transferAll(batch.transfers, new Date());
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.cydeo.banksimulation.benchmark;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.TransactionDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.MapperStrategy;
+import com.cydeo.banksimulation.event.TransferCompletedEvent;
+import com.cydeo.banksimulation.mapper.AccountMapper;
+import com.cydeo.banksimulation.mapper.TransactionMapper;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.LedgerEntryRepository;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.LedgerService;
+import com.cydeo.banksimulation.service.TransactionService;
+import com.cydeo.banksimulation.service.impl.AccountIndex;
+import com.cydeo.banksimulation.service.impl.LedgerServiceImpl;
+import com.cydeo.banksimulation.service.impl.RecentTransactionFeed;
+import com.cydeo.banksimulation.service.impl.TransactionServiceImpl;
+import com.cydeo.banksimulation.service.impl.TransferEngineImpl;
+import com.cydeo.banksimulation.service.impl.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferBenchmark {
+
+    private static final int ACCOUNT_COUNT = 1000;
+
+    private InMemoryRepository<Transaction> transactionRows;
+    private TransactionService transactionService;
+    private AccountDTO[] accounts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        InMemoryRepository<Account> accountRows = BenchmarkFixtures.accounts();
+        AccountRepository accountRepository = accountRows.as(AccountRepository.class);
+        transactionRows = BenchmarkFixtures.transactions();
+        TransactionRepository transactionRepository = transactionRows.as(TransactionRepository.class);
+
+        ModelMapper modelMapper = new ModelMapper();
+        AccountMapper accountMapper = new AccountMapper(modelMapper, MapperStrategy.MANUAL, new SimpleMeterRegistry());
+        TransactionMapper transactionMapper = new TransactionMapper(modelMapper, accountMapper, MapperStrategy.MANUAL, new SimpleMeterRegistry());
+
+        accounts = new AccountDTO[ACCOUNT_COUNT];
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            Account account = accountRepository.save(
+                    BenchmarkFixtures.prepareAccount(new BigDecimal(1_000_000_000), AccountStatus.ACTIVE));
+            accounts[i] = accountMapper.convertToDto(account);
+        }
+
+        RecentTransactionFeed recentTransactionFeed = new RecentTransactionFeed(transactionRepository, transactionMapper, 10);
+        LedgerService ledgerService = new LedgerServiceImpl(BenchmarkFixtures.ledgerEntries().as(LedgerEntryRepository.class),
+                null, accountRepository, event -> {});
+        TransferMetrics transferMetrics = new TransferMetrics(new SimpleMeterRegistry());
+        TransferEngineImpl transferEngine = new TransferEngineImpl(accountRepository, transactionRepository, ledgerService,
+                event -> recentTransactionFeed.onTransferCompleted((TransferCompletedEvent) event), transferMetrics);
+        transactionService = new TransactionServiceImpl(transferEngine, transactionRepository, transactionMapper,
+                recentTransactionFeed, transferMetrics, new AccountIndex(accountRepository, new SimpleMeterRegistry(), ACCOUNT_COUNT));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTransactions() {
+        transactionRows.clear();
+    }
+
+    @Benchmark
+    public TransactionDTO makeTransfer() {
+        int sender = next;
+        next = (next + 1) % ACCOUNT_COUNT;
+        return transactionService.makeTransfer(BigDecimal.ONE, new Date(), accounts[sender], accounts[next], "benchmark");
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.cydeo.banksimulation.loadtest;
+
+import com.cydeo.banksimulation.BankSimulationApplication;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts the application on H2 in PostgreSQL mode and fires transfers at POST /transfer with a fixed
+ * number of requests in flight. Run it once per execution mode and compare the output:
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.mode=PLATFORM
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.mode=VIRTUAL
+ * </pre>
+ * VIRTUAL needs a Java 21 runtime. Arguments: mode, request count, concurrency.
+ */
+public class TransferLoadTest {
+
+    private static final int ACCOUNT_COUNT = 200;
+    private static final int WARMUP_REQUESTS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "PLATFORM";
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BankSimulationApplication.class)
+                .properties(
+                        "web.execution-mode=" + mode,
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.sql.init.mode=never",
+                        "mock.smsservice.enable=true",
+                        "sms.dispatch.poll-interval-millis=3600000",
+                        "ledger.snapshot.interval-millis=3600000",
+                        "logging.level.root=WARN")
+                .run();
+        try {
+            List<Long> accountIds = seedAccounts(context.getBean(AccountRepository.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            URI uri = URI.create("http://localhost:" + port + "/transfer");
+
+            run(client, uri, accountIds, WARMUP_REQUESTS, concurrency);
+            Result result = run(client, uri, accountIds, requests, concurrency);
+            System.out.printf("mode=%s requests=%d concurrency=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms errors=%d%n",
+                    mode, requests, concurrency, result.throughput(), result.percentile(50), result.percentile(99),
+                    result.errors);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<Long> seedAccounts(AccountRepository accountRepository) {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            Account account = new Account();
+            account.setAccountType(AccountType.CHECKINGS);
+            account.setAccountStatus(AccountStatus.ACTIVE);
+            account.setCreationDate(new Date());
+            account.setUserId((long) i);
+            account.setBalance(new BigDecimal("1000000.00"));
+            account.setPhoneNumber("+10000000000");
+            account.setOtpVerified(true);
+            accounts.add(account);
+        }
+        List<Long> accountIds = new ArrayList<>();
+        accountRepository.saveAll(accounts).forEach(account -> accountIds.add(account.getId()));
+        return accountIds;
+    }
+
+    private static Result run(HttpClient client, URI uri, List<Long> accountIds, int requests, int concurrency)
+            throws InterruptedException {
+        Random random = new Random(42);
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger errors = new AtomicInteger();
+        long[] latencies = new long[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int sender = random.nextInt(accountIds.size());
+            int receiver = (sender + 1 + random.nextInt(accountIds.size() - 1)) % accountIds.size();
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("sender.id=" + accountIds.get(sender)
+                            + "&receiver.id=" + accountIds.get(receiver) + "&amount=1.00&message=load"))
+                    .build();
+
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                latencies[index] = System.nanoTime() - sent;
+                if (failure != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await(10, TimeUnit.MINUTES);
+        return new Result(latencies, System.nanoTime() - start, errors.get());
+    }
+
+    private static final class Result {
+
+        private final long[] latencies;
+        private final long elapsedNanos;
+        private final int errors;
+
+        Result(long[] latencies, long elapsedNanos, int errors) {
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+        }
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        double percentile(int percentile) {
+            int index = Math.min(latencies.length - 1, (int) Math.ceil(latencies.length * percentile / 100.0) - 1);
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
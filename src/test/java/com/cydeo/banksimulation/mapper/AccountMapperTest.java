@@ -4,6 +4,8 @@ import com.cydeo.banksimulation.dto.AccountDTO;
 import com.cydeo.banksimulation.entity.Account;
 import com.cydeo.banksimulation.enums.AccountStatus;
 import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.enums.MapperStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -24,7 +26,7 @@ public class AccountMapperTest {
     @BeforeAll
     public void setUp(){
         ModelMapper modelMapper = new ModelMapper();
-        accountMapper = new AccountMapper(modelMapper);
+        accountMapper = new AccountMapper(modelMapper, MapperStrategy.MANUAL, new SimpleMeterRegistry());
     }
 
     @Test
@@ -47,6 +49,25 @@ public class AccountMapperTest {
         assertEquals(account.getUserId(),accountDTO.getUserId());
     }
 
+    @Test
+    public void should_convert_the_same_way_as_model_mapper() {
+        AccountMapper modelMapperBacked = new AccountMapper(new ModelMapper(), MapperStrategy.MODEL_MAPPER, new SimpleMeterRegistry());
+        Account account = prepareAccount(5L, new BigDecimal(9),
+                AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+
+        AccountDTO expected = modelMapperBacked.convertToDto(account);
+        AccountDTO actual = accountMapper.convertToDto(account);
+
+        assertEquals(expected.getId(),actual.getId());
+        assertEquals(expected.getAccountType(),actual.getAccountType());
+        assertEquals(expected.getAccountStatus(),actual.getAccountStatus());
+        assertEquals(expected.getCreationDate(),actual.getCreationDate());
+        assertEquals(expected.getUserId(),actual.getUserId());
+        assertEquals(expected.getBalance(),actual.getBalance());
+        assertEquals(expected.getOtpVerified(),actual.getOtpVerified());
+        assertEquals(expected.getPhoneNumber(),actual.getPhoneNumber());
+    }
+
     private AccountDTO prepareAccountDTO(Long id, BigDecimal balance,
                                          AccountStatus accountStatus, boolean verified, Long userId, AccountType accountType) {
 
@@ -0,0 +1,67 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.event.AccountChangedEvent;
+import com.cydeo.banksimulation.exception.AccountNotFoundException;
+import com.cydeo.banksimulation.mapper.AccountMapper;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.impl.AccountCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountCacheTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountMapper accountMapper;
+
+    private AccountCache accountCache;
+
+    @BeforeEach
+    public void setUp() {
+        accountCache = new AccountCache(accountRepository, accountMapper, new SimpleMeterRegistry(), 100, 60);
+    }
+
+    @Test
+    public void should_load_account_once_until_it_changes() {
+        Account account = new Account();
+        AccountDTO accountDTO = new AccountDTO();
+        accountDTO.setId(1L);
+        accountDTO.setBalance(new BigDecimal(100));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountMapper.convertToDto(account)).thenReturn(accountDTO);
+
+        accountCache.get(1L);
+        AccountDTO cached = accountCache.get(1L);
+        verify(accountRepository, times(1)).findById(1L);
+        assertEquals(new BigDecimal(100), cached.getBalance());
+
+        accountCache.onAccountChanged(new AccountChangedEvent(1L));
+        accountCache.get(1L);
+        verify(accountRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void should_not_cache_missing_accounts() {
+        when(accountRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(AccountNotFoundException.class, () -> accountCache.get(2L));
+        assertThrows(AccountNotFoundException.class, () -> accountCache.get(2L));
+        verify(accountRepository, times(2)).findById(2L);
+    }
+
+}
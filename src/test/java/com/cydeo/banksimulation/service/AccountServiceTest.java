@@ -6,10 +6,12 @@ import com.cydeo.banksimulation.entity.Account;
 import com.cydeo.banksimulation.enums.AccountStatus;
 import com.cydeo.banksimulation.enums.AccountType;
 import com.cydeo.banksimulation.exception.AccountStatusInvalidException;
+import com.cydeo.banksimulation.exception.BadRequestException;
 import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
 import com.cydeo.banksimulation.mapper.AccountMapper;
 import com.cydeo.banksimulation.mapper.AccountMapperTest;
 import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.impl.AccountCache;
 import com.cydeo.banksimulation.service.impl.AccountServiceImpl;
 import org.assertj.core.api.ThrowableAssert;
 import org.junit.jupiter.api.Test;
@@ -17,11 +19,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
 import java.math.BigDecimal;
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +40,15 @@ public class AccountServiceTest {
     @Mock
     private OtpService otpService;
 
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -88,6 +101,17 @@ public class AccountServiceTest {
         assertEquals("Account status can not be Deleted", accountStatusInvalidException.getMessage());
     }
 
+    @Test
+    public void should_throw_bad_request_exception_when_balance_has_more_than_two_decimals(){
+        AccountDTO accountDTO = prepareAccountDTOForBalanceTest(new BigDecimal("12.345"), AccountStatus.ACTIVE);
+
+        Throwable throwable = ThrowableAssert.catchThrowable(()-> accountService.createNewAccount(accountDTO));
+
+        assertInstanceOf(BadRequestException.class,throwable);
+        assertEquals("Initial balance can not have more than 2 decimal places", throwable.getMessage());
+        verifyNoInteractions(accountRepository);
+    }
+
     private AccountDTO prepareAccountDTOForBalanceTest(BigDecimal balance, AccountStatus accountStatus) {
         AccountDTO accountDTO = new AccountDTO();
         accountDTO.setAccountStatus(accountStatus);
@@ -0,0 +1,138 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.ResponseWrapper;
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.entity.IdempotencyRecord;
+import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
+import com.cydeo.banksimulation.exception.IdempotencyConflictException;
+import com.cydeo.banksimulation.repository.IdempotencyRecordRepository;
+import com.cydeo.banksimulation.service.impl.IdempotencyServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyService idempotencyService;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository,
+                new TransactionTemplate(transactionManager), new ObjectMapper(), 24, 1000);
+        when(idempotencyRecordRepository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void should_run_transfer_once_and_replay_original_response() {
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN, "rent");
+
+        ResponseEntity<ResponseWrapper> first = idempotencyService.execute("key-1", "transfer", request, this::transfer);
+        ResponseEntity<ResponseWrapper> retry = idempotencyService.execute("key-1", "transfer", request, this::transfer);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals(first.getBody().getMessage(), retry.getBody().getMessage());
+        assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+    }
+
+    @Test
+    public void should_reject_key_reused_for_different_request() {
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        idempotencyService.execute("key-2", "transfer", new TransferRequestDTO(1L, 2L, BigDecimal.TEN, "rent"), this::transfer);
+
+        Throwable throwable = assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute("key-2",
+                "transfer", new TransferRequestDTO(1L, 2L, BigDecimal.ONE, "rent"), this::transfer));
+
+        assertEquals("Idempotency-Key was already used for a different request", throwable.getMessage());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void should_release_key_when_request_fails() {
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN, "rent");
+
+        assertThrows(BalanceNotSufficientException.class, () -> idempotencyService.execute("key-3", "transfer", request, () -> {
+            throw new BalanceNotSufficientException("Balance is not enough for this transaction");
+        }));
+        idempotencyService.execute("key-3", "transfer", request, this::transfer);
+
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void should_run_request_after_claim_transaction_committed() {
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN, "rent");
+
+        idempotencyService.execute("key-5", "transfer", request, () -> {
+            verify(transactionManager, times(1)).commit(any());
+            return transfer();
+        });
+
+        verify(transactionManager, times(2)).commit(any());
+        verify(idempotencyRecordRepository).save(argThat(record -> record.getResponseStatus() == 200));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void should_replay_response_stored_by_another_instance() throws Exception {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN, "rent");
+        ObjectMapper objectMapper = new ObjectMapper();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRequestHash(sha256(objectMapper.writeValueAsBytes(request)));
+        record.setResponseStatus(200);
+        record.setResponseBody(objectMapper.writeValueAsString(new ResponseWrapper("Transaction is successfully made", HttpStatus.OK)));
+        record.setExpiresAt(new Date(System.currentTimeMillis() + 60_000));
+        when(idempotencyRecordRepository.findByIdempotencyKey("transfer:key-4")).thenReturn(Optional.of(record));
+
+        ResponseEntity<ResponseWrapper> response = idempotencyService.execute("key-4", "transfer", request, this::transfer);
+
+        assertEquals(0, executions.get());
+        assertEquals("Transaction is successfully made", response.getBody().getMessage());
+    }
+
+    private String sha256(byte[] content) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private ResponseEntity<ResponseWrapper> transfer() {
+        executions.incrementAndGet();
+        return ResponseEntity.ok(new ResponseWrapper("Transaction is successfully made", HttpStatus.OK));
+    }
+
+}
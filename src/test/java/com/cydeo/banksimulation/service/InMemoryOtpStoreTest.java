@@ -0,0 +1,64 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.exception.OtpInvalidException;
+import com.cydeo.banksimulation.service.impl.InMemoryOtpStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryOtpStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final InMemoryOtpStore otpStore = new InMemoryOtpStore(60_000, 1000, now::get);
+
+    @Test
+    public void should_return_account_and_consume_otp_when_code_matches() {
+        long otpId = otpStore.save(42L, 123456);
+
+        assertEquals(42L, otpStore.verify(otpId, 123456));
+
+        Throwable throwable = assertThrows(OtpInvalidException.class, () -> otpStore.verify(otpId, 123456));
+        assertEquals("otp not found", throwable.getMessage());
+    }
+
+    @Test
+    public void should_keep_otp_when_code_does_not_match() {
+        long otpId = otpStore.save(42L, 123456);
+
+        Throwable throwable = assertThrows(OtpInvalidException.class, () -> otpStore.verify(otpId, 654321));
+
+        assertEquals("Otpcode does not match", throwable.getMessage());
+        assertEquals(42L, otpStore.verify(otpId, 123456));
+    }
+
+    @Test
+    public void should_evict_expired_otps_without_a_cleanup_job() {
+        for (int i = 0; i < 500; i++) {
+            otpStore.save(i, 100000 + i);
+        }
+        long lastId = otpStore.save(500L, 999999);
+
+        now.addAndGet(60_000);
+        assertThrows(OtpInvalidException.class, () -> otpStore.verify(lastId, 999999));
+
+        now.addAndGet(2_000);
+        otpStore.save(1L, 111111);
+        for (long otpId = 1; otpId <= lastId; otpId++) {
+            long id = otpId;
+            assertThrows(OtpInvalidException.class, () -> otpStore.verify(id, 0));
+        }
+        assertEquals(1, otpStore.size());
+    }
+
+    @Test
+    public void should_stay_within_max_entries() {
+        for (int i = 0; i < 10_000; i++) {
+            otpStore.save(i, 100000);
+        }
+
+        assertTrue(otpStore.size() <= 1000);
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.OnboardingResultDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.enums.ExportFormat;
+import com.cydeo.banksimulation.event.AccountsCreatedEvent;
+import com.cydeo.banksimulation.exception.BadRequestException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.service.impl.OnboardingServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OnboardingServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private OtpService otpService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Account> created = new ArrayList<>();
+
+    private OnboardingService onboardingService;
+
+    @BeforeEach
+    public void setUp() {
+        onboardingService = new OnboardingServiceImpl(accountRepository, ledgerService, otpService,
+                new TransactionTemplate(transactionManager), new ObjectMapper(),
+                event -> created.addAll(((AccountsCreatedEvent) event).getAccounts()),
+                new SimpleMeterRegistry(), 2, 10);
+    }
+
+    @Test
+    public void should_create_valid_ndjson_rows_and_report_the_others() throws IOException {
+        stubInserts();
+        OnboardingResultDTO result = onboardingService.onboardAccounts(ExportFormat.NDJSON, body(
+                "{\"accountType\":\"CHECKINGS\",\"userId\":1,\"balance\":100,\"phoneNumber\":\"555\"}\n" +
+                "{\"accountType\":\"SAVINGS\",\"userId\":2,\"balance\":0}\n" +
+                "not json\n" +
+                "\n" +
+                "{\"accountType\":\"SAVINGS\",\"userId\":3,\"balance\":5.5,\"accountStatus\":\"DELETED\"}\n" +
+                "{\"id\":99,\"accountType\":\"SAVINGS\",\"userId\":4,\"balance\":12.25,\"otpVerified\":true}\n"));
+
+        assertEquals(2, result.getCreated());
+        assertEquals(3, result.getRejected());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals("Initial balance needs to bigger than Zero", result.getErrors().get(0).getMessage());
+        assertEquals(3, result.getErrors().get(1).getLine());
+        assertEquals(5, result.getErrors().get(2).getLine());
+        assertEquals("Account status can not be Deleted", result.getErrors().get(2).getMessage());
+
+        assertEquals(2, created.size());
+        Account last = created.get(1);
+        assertEquals(2L, last.getId());
+        assertFalse(last.getOtpVerified());
+        assertEquals(AccountStatus.ACTIVE, last.getAccountStatus());
+        assertEquals(new BigDecimal("12.25"), last.getBalance());
+        verify(otpService, times(2)).createOtpsSendSms(anyList());
+
+        assertEquals(2, result.getAccounts().size());
+        assertEquals(1, result.getAccounts().get(0).getLine());
+        assertEquals(1L, result.getAccounts().get(0).getAccountId());
+        assertEquals(501L, result.getAccounts().get(0).getOtpId());
+        assertEquals(6, result.getAccounts().get(1).getLine());
+        assertEquals(2L, result.getAccounts().get(1).getAccountId());
+        assertEquals(502L, result.getAccounts().get(1).getOtpId());
+    }
+
+    @Test
+    public void should_read_csv_columns_by_header() throws IOException {
+        stubInserts();
+        OnboardingResultDTO result = onboardingService.onboardAccounts(ExportFormat.CSV, body(
+                "id,accountType,accountStatus,creationDate,userId,balance,otpVerified,phoneNumber\n" +
+                ",CHECKINGS,ACTIVE,,7,250.50,,\"555, ext 2\"\n" +
+                ",GOLD,ACTIVE,,8,10,,555\n"));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertEquals("Column accountType is not valid", result.getErrors().get(0).getMessage());
+        assertEquals(AccountType.CHECKINGS, created.get(0).getAccountType());
+        assertEquals(7L, created.get(0).getUserId());
+        assertEquals("555, ext 2", created.get(0).getPhoneNumber());
+        assertEquals(2, result.getAccounts().get(0).getLine());
+        assertEquals(501L, result.getAccounts().get(0).getOtpId());
+    }
+
+    @Test
+    public void should_reject_csv_without_required_columns() {
+        assertThrows(BadRequestException.class, () ->
+                onboardingService.onboardAccounts(ExportFormat.CSV, body("accountType,userId\nCHECKINGS,1\n")));
+    }
+
+    // ids are handed out like the sequences would, every otp id is its account id plus 500
+    private void stubInserts() {
+        AtomicLong accountIds = new AtomicLong();
+        when(accountRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Account> accounts = invocation.getArgument(0);
+            accounts.forEach(account -> account.setId(accountIds.incrementAndGet()));
+            return accounts;
+        });
+        when(otpService.createOtpsSendSms(anyList())).thenAnswer(invocation -> {
+            List<Account> accounts = invocation.getArgument(0);
+            return accounts.stream().mapToLong(account -> account.getId() + 500).toArray();
+        });
+    }
+
+    private InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,132 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.LedgerEntry;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.LedgerEntryRepository;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.impl.LedgerServiceImpl;
+import com.cydeo.banksimulation.service.impl.RetryingTransferEngine;
+import com.cydeo.banksimulation.service.impl.TransferEngineImpl;
+import com.cydeo.banksimulation.service.impl.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:optimistic-transfers;MODE=PostgreSQL;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "transfer.locking-mode=OPTIMISTIC",
+        "transfer.optimistic.max-retries=100",
+        "transfer.optimistic.backoff-millis=1"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TransferEngineImpl.class, RetryingTransferEngine.class, LedgerServiceImpl.class, TransferMetrics.class,
+        SimpleMeterRegistry.class})
+public class OptimisticTransferConcurrencyTest {
+
+    private static final int ACCOUNT_COUNT = 10;
+    private static final int TRANSFER_COUNT = 1000;
+    private static final int THREAD_COUNT = 8;
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Test
+    public void should_retry_conflicts_and_keep_ledger_gap_free() throws Exception {
+        List<Long> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountIds.add(accountRepository.save(prepareAccount(new BigDecimal(1000))).getId());
+        }
+
+        Random random = new Random(7);
+        List<Callable<Boolean>> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFER_COUNT; i++) {
+            int sender = random.nextInt(ACCOUNT_COUNT);
+            int receiver = (sender + 1 + random.nextInt(ACCOUNT_COUNT - 1)) % ACCOUNT_COUNT;
+            BigDecimal amount = new BigDecimal(random.nextInt(50) + 1);
+            transfers.add(() -> {
+                try {
+                    transferEngine.transfer(amount, new Date(), accountIds.get(sender), accountIds.get(receiver), "stress");
+                    return true;
+                } catch (BalanceNotSufficientException e) {
+                    return false;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        long completed = 0;
+        try {
+            // a conflict that is not retried fails its future and therefore the test
+            for (Future<Boolean> result : executor.invokeAll(transfers)) {
+                if (result.get()) {
+                    completed++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(completed, transactionRepository.count());
+        assertEquals(2 * completed, ledgerEntryRepository.count());
+        Map<Long, List<Long>> sequences = ledgerEntryRepository.findAll().stream()
+                .collect(Collectors.groupingBy(LedgerEntry::getAccountId,
+                        Collectors.mapping(LedgerEntry::getEntrySequence, Collectors.toList())));
+        for (Account account : accountRepository.findAll()) {
+            List<Long> accountSequences = sequences.getOrDefault(account.getId(), new ArrayList<>());
+            // entries 1..n without gaps, n being the sequence stored on the account
+            assertEquals(account.getLedgerSequence().longValue(), accountSequences.size());
+            assertEquals(account.getLedgerSequence().longValue(),
+                    accountSequences.stream().mapToLong(Long::longValue).max().orElse(0));
+            assertEquals(0, new BigDecimal(1000)
+                    .add(BigDecimal.valueOf(ledgerEntryRepository.sumAfter(account.getId(), 0L, new Date()), 2))
+                    .compareTo(account.getBalance()));
+        }
+    }
+
+    private Account prepareAccount(BigDecimal balance) {
+        Account account = new Account();
+        account.setBalance(balance);
+        account.setAccountStatus(AccountStatus.ACTIVE);
+        account.setOtpVerified(true);
+        account.setUserId(123L);
+        account.setPhoneNumber("121165465");
+        account.setCreationDate(new Date());
+        account.setAccountType(AccountType.CHECKINGS);
+        return account;
+    }
+
+}
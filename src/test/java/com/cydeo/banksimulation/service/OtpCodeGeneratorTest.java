@@ -0,0 +1,27 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.service.impl.OtpCodeGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OtpCodeGeneratorTest {
+
+    @Test
+    public void should_generate_six_digit_codes_across_block_refills() {
+        OtpCodeGenerator otpCodeGenerator = new OtpCodeGenerator(16);
+        Set<Integer> codes = new HashSet<>();
+
+        for (int i = 0; i < 1000; i++) {
+            int code = otpCodeGenerator.nextCode();
+            assertTrue(code >= 100000 && code <= 999999, "code out of range: " + code);
+            codes.add(code);
+        }
+
+        assertTrue(codes.size() > 990);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.entity.SmsOutbox;
+import com.cydeo.banksimulation.enums.SmsStatus;
+import com.cydeo.banksimulation.repository.SmsOutboxRepository;
+import com.cydeo.banksimulation.service.impl.SmsDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SmsDispatcherTest {
+
+    @Mock
+    private SmsOutboxRepository smsOutboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StubSmsGateway smsGateway;
+
+    private SmsDispatcher smsDispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        smsGateway = new StubSmsGateway(Collections.singleton("5550000"));
+        smsDispatcher = new SmsDispatcher(smsOutboxRepository, smsGateway,
+                new TransactionTemplate(transactionManager), Runnable::run);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_mark_delivered_sms_as_sent_and_reschedule_failed_ones() {
+        SmsOutbox delivered = prepareSms(1L, "5551234");
+        SmsOutbox unreachable = prepareSms(2L, "5550000");
+
+        when(smsOutboxRepository.findDueForUpdate(eq(SmsStatus.PENDING), any(), any()))
+                .thenReturn(new ArrayList<>(Arrays.asList(delivered, unreachable)));
+
+        long before = System.currentTimeMillis();
+        smsDispatcher.dispatch();
+
+        assertEquals(1, smsGateway.getSentRequests().size());
+        assertEquals("5551234", smsGateway.getSentRequests().get(0).getPhoneNumber());
+        verify(smsOutboxRepository).updateStatus(Collections.singletonList(1L), SmsStatus.SENT);
+
+        ArgumentCaptor<Iterable<SmsOutbox>> failed = ArgumentCaptor.forClass(Iterable.class);
+        verify(smsOutboxRepository).saveAll(failed.capture());
+        SmsOutbox rescheduled = failed.getValue().iterator().next();
+        assertEquals(2L, rescheduled.getId());
+        assertEquals(1, rescheduled.getAttempts());
+        assertEquals(SmsStatus.PENDING, rescheduled.getStatus());
+        assertTrue(rescheduled.getNextAttemptAt().getTime() > before);
+    }
+
+    private SmsOutbox prepareSms(Long id, String phoneNumber) {
+        SmsOutbox smsOutbox = new SmsOutbox();
+        smsOutbox.setId(id);
+        smsOutbox.setPhoneNumber(phoneNumber);
+        smsOutbox.setMessage("To verify account please use 123456otpCode");
+        smsOutbox.setStatus(SmsStatus.PENDING);
+        smsOutbox.setNextAttemptAt(new Date());
+        smsOutbox.setCreatedAt(new Date());
+        return smsOutbox;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.SmsRequestDTO;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class StubSmsGateway implements SmsService {
+
+    private final Set<String> unreachableNumbers;
+    private final List<SmsRequestDTO> sentRequests = new CopyOnWriteArrayList<>();
+
+    public StubSmsGateway(Set<String> unreachableNumbers) {
+        this.unreachableNumbers = unreachableNumbers;
+    }
+
+    @Override
+    public String sendSms(SmsRequestDTO smsRequestDTO) {
+        if (unreachableNumbers.contains(smsRequestDTO.getPhoneNumber())) {
+            throw new IllegalStateException("sms gateway is not reachable");
+        }
+        sentRequests.add(smsRequestDTO);
+        return "ok";
+    }
+
+    public List<SmsRequestDTO> getSentRequests() {
+        return sentRequests;
+    }
+}
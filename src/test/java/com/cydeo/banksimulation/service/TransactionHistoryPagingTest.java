@@ -0,0 +1,109 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.dto.CursorPageDTO;
+import com.cydeo.banksimulation.dto.TransactionDTO;
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.entity.Transaction;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.enums.MapperStrategy;
+import com.cydeo.banksimulation.mapper.AccountMapper;
+import com.cydeo.banksimulation.mapper.TransactionMapper;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.impl.TransactionServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TransactionHistoryPagingTest {
+
+    private static final int TRANSACTION_COUNT = 7;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    public void should_page_through_same_day_history_without_gaps_or_repeats() {
+        Account owner = accountRepository.save(prepareAccount());
+        Account other = accountRepository.save(prepareAccount());
+        Account unrelated = accountRepository.save(prepareAccount());
+
+        Calendar time = Calendar.getInstance();
+        time.set(Calendar.HOUR_OF_DAY, 9);
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < TRANSACTION_COUNT; i++) {
+            time.add(Calendar.MINUTE, 7);
+            String message = "history-" + i;
+            transactionRepository.save(prepareTransaction(i % 2 == 0 ? owner : other, i % 2 == 0 ? other : owner,
+                    message, time.getTime()));
+            expected.add(message);
+            transactionRepository.save(prepareTransaction(other, unrelated, "unrelated-" + i, time.getTime()));
+        }
+
+        AccountMapper accountMapper = new AccountMapper(new ModelMapper(), MapperStrategy.MANUAL, new SimpleMeterRegistry());
+        TransactionService transactionService = new TransactionServiceImpl(null, transactionRepository,
+                new TransactionMapper(new ModelMapper(), accountMapper, MapperStrategy.MANUAL, new SimpleMeterRegistry()),
+                null, null, null);
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageDTO<TransactionDTO> page = transactionService.findTransactionHistory(owner.getId(), cursor, 2);
+            page.getContent().forEach(transaction -> seen.add(transaction.getMessage()));
+            cursor = page.getNextCursor();
+            assertTrue(++pages <= TRANSACTION_COUNT, "history does not end");
+        } while (cursor != null);
+
+        assertEquals(TRANSACTION_COUNT, seen.size());
+        assertEquals(expected, new HashSet<>(seen));
+    }
+
+    private Transaction prepareTransaction(Account sender, Account receiver, String message, Date creationDate) {
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(BigDecimal.ONE);
+        transaction.setMessage(message);
+        transaction.setCreationDate(creationDate);
+        return transaction;
+    }
+
+    private Account prepareAccount() {
+        Account account = new Account();
+        account.setBalance(new BigDecimal(1000));
+        account.setAccountStatus(AccountStatus.ACTIVE);
+        account.setOtpVerified(true);
+        account.setUserId(123L);
+        account.setPhoneNumber("121165465");
+        account.setCreationDate(new Date());
+        account.setAccountType(AccountType.CHECKINGS);
+        return account;
+    }
+
+}
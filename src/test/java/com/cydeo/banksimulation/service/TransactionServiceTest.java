@@ -1,6 +1,10 @@
 package com.cydeo.banksimulation.service;
 
 import com.cydeo.banksimulation.dto.AccountDTO;
+import com.cydeo.banksimulation.dto.CursorPageDTO;
+import com.cydeo.banksimulation.dto.TransactionDTO;
+import com.cydeo.banksimulation.dto.TransferRequestDTO;
+import com.cydeo.banksimulation.dto.TransferResultDTO;
 import com.cydeo.banksimulation.entity.Account;
 import com.cydeo.banksimulation.entity.Transaction;
 import com.cydeo.banksimulation.enums.AccountStatus;
@@ -10,28 +14,37 @@ import com.cydeo.banksimulation.exception.AccountOwnerShipException;
 import com.cydeo.banksimulation.exception.BadRequestException;
 import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
 import com.cydeo.banksimulation.mapper.TransactionMapper;
+import com.cydeo.banksimulation.repository.AccountRepository;
 import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.impl.AccountIndex;
+import com.cydeo.banksimulation.service.impl.RecentTransactionFeed;
 import com.cydeo.banksimulation.service.impl.TransactionServiceImpl;
+import com.cydeo.banksimulation.service.impl.TransferEngineImpl;
+import com.cydeo.banksimulation.service.impl.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThatNoException;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class TransactionServiceTest {
 
     @Mock
-    private AccountService accountService;
+    private AccountRepository accountRepository;
 
     @Mock
     private TransactionMapper transactionMapper;
@@ -39,32 +52,53 @@ public class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
-    @InjectMocks
+    @Mock
+    private RecentTransactionFeed recentTransactionFeed;
+
+    @Mock
+    private LedgerService ledgerService;
+
     private TransactionServiceImpl transactionService;
 
+    private SimpleMeterRegistry meterRegistry;
+
+    private AccountIndex accountIndex;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TransferMetrics transferMetrics = new TransferMetrics(meterRegistry);
+        TransferEngine transferEngine = new TransferEngineImpl(accountRepository, transactionRepository, ledgerService,
+                event -> {}, transferMetrics);
+        accountIndex = new AccountIndex(accountRepository, meterRegistry, 16);
+        transactionService = new TransactionServiceImpl(transferEngine, transactionRepository, transactionMapper,
+                recentTransactionFeed, transferMetrics, accountIndex);
+    }
+
     @Test
     public void should_make_transfer() {
 
-        AccountDTO sender = prepareAccountDTO(1L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(2L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
-        Transaction transaction = new Transaction();
+        Account sender = prepareAccount(1L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(2L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
 
-        when(accountService.retrieveById(1L)).thenReturn(sender);
-        when(accountService.retrieveById(2L)).thenReturn(receiver);
-        when(transactionMapper.convertToEntity(any())).thenReturn(transaction);
-        when(transactionRepository.save(any())).thenReturn(transaction);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
         assertNull(throwable);
+        assertEquals(new BigDecimal("240.00"), sender.getBalance());
+        assertEquals(new BigDecimal("160.00"), receiver.getBalance());
+        assertEquals(1L, meterRegistry.get("transfer").tag("outcome", "success").timer().count());
+        assertEquals(1L, meterRegistry.get("transfer.phase").tag("phase", "persist").timer().count());
     }
 
     @Test
     public void should_throw_bad_request_exception_when_sender_account_is_null() {
-        AccountDTO receiver = prepareAccountDTO(2L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(2L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),null, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),null, prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(BadRequestException.class, throwable);
@@ -74,10 +108,10 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_bad_request_exception_when_receiver_account_is_null() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, null,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), null,"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(BadRequestException.class, throwable);
@@ -87,11 +121,11 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_bad_request_exception_when_sender_and_receiver_account_id_are_the_same() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(5L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(5L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(BadRequestException.class, throwable);
@@ -101,11 +135,14 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_bad_request_exception_when_sender_account_status_is_deleted() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.DELETED,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.DELETED,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(BadRequestException.class, throwable);
@@ -115,11 +152,14 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_bad_request_exception_when_receiver_account_status_is_deleted() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.DELETED,true,125L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.DELETED,true,125L,AccountType.CHECKINGS);
+
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(BadRequestException.class, throwable);
@@ -129,13 +169,14 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_account_not_verified_exception_sender_account_is_not_verified() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,false,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,false,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(AccountNotVerifiedException.class, throwable);
@@ -145,14 +186,14 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_account_not_verified_exception_receiver_account_is_not_verified() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,false,125L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,false,125L,AccountType.CHECKINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(AccountNotVerifiedException.class, throwable);
@@ -162,14 +203,14 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_account_ownership_exception_when_sender_account_is_savings_but_user_id_is_different() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(AccountOwnerShipException.class, throwable);
@@ -179,14 +220,14 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_account_ownership_exception_when_receiver_account_is_savings_but_user_id_is_different() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.SAVINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.SAVINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(AccountOwnerShipException.class, throwable);
@@ -196,14 +237,14 @@ public class TransactionServiceTest {
 
     @Test
     public void should_throw_account_ownership_exception_when_sender_and_receiver_account_are_savings_but_user_id_is_different() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.SAVINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.SAVINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(AccountOwnerShipException.class, throwable);
@@ -213,71 +254,131 @@ public class TransactionServiceTest {
 
     @Test
     public void should_make_transfer_when_sender_and_receiver_account_are_savings_but_user_id_is_same() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNull(throwable);
     }
 
     @Test
     public void should_make_transfer_when_sender_account_is_savings_but_user_id_is_same() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNull(throwable);
     }
 
     @Test
     public void should_make_transfer_when_receiver_account_is_savings_but_user_id_is_same() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNull(throwable);
     }
 
     @Test
     public void should_throw_balance_not_sufficient_exception_when_sender_balance_is_not_enough() {
-        AccountDTO sender = prepareAccountDTO(5L, new BigDecimal(9),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
-        AccountDTO receiver = prepareAccountDTO(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
+        Account sender = prepareAccount(5L, new BigDecimal(9),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,123L,AccountType.SAVINGS);
 
-        when(accountService.retrieveById(5L)).thenReturn(sender);
-        when(accountService.retrieveById(6L)).thenReturn(receiver);
+        when(accountRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(sender));
+        when(accountRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(receiver));
 
         Throwable throwable = catchThrowable(() ->
-                transactionService.makeTransfer(BigDecimal.TEN, new Date(),sender, receiver,"message"));
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
         assertNotNull(throwable);
         assertInstanceOf(BalanceNotSufficientException.class, throwable);
         BalanceNotSufficientException balanceNotSufficientException = (BalanceNotSufficientException) throwable;
         assertEquals("Balance is not enough for this transaction", balanceNotSufficientException.getMessage());
+        assertEquals(new BigDecimal(9), sender.getBalance());
+        assertEquals(1.0, meterRegistry.get("transfer.rejected").tag("reason", "insufficient_balance").counter().count());
+        assertEquals(1L, meterRegistry.get("transfer").tag("outcome", "rejected").timer().count());
     }
 
+    @Test
+    public void should_reject_transfer_from_indexed_accounts_without_locking_them() {
+        Account sender = prepareAccount(5L, new BigDecimal(250),AccountStatus.ACTIVE,false,123L,AccountType.CHECKINGS);
+        Account receiver = prepareAccount(6L, new BigDecimal(150),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+        accountIndex.put(sender);
+        accountIndex.put(receiver);
 
+        Throwable throwable = catchThrowable(() ->
+                transactionService.makeTransfer(BigDecimal.TEN, new Date(),prepareAccountDTO(sender), prepareAccountDTO(receiver),"message"));
 
+        assertInstanceOf(AccountNotVerifiedException.class, throwable);
+        verifyNoInteractions(accountRepository);
+        assertEquals(1.0, meterRegistry.get("transfer.rejected").tag("reason", "not_verified").counter().count());
+    }
+
+    @Test
+    public void should_report_per_item_results_for_batch_transfer() {
+        Account first = prepareAccount(5L, new BigDecimal(100),AccountStatus.ACTIVE,true,123L,AccountType.CHECKINGS);
+        Account second = prepareAccount(6L, new BigDecimal(50),AccountStatus.ACTIVE,true,125L,AccountType.CHECKINGS);
+
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(first, second));
+
+        List<TransferResultDTO> results = transactionService.makeBatchTransfer(List.of(
+                new TransferRequestDTO(5L, 6L, new BigDecimal(60), "first"),
+                new TransferRequestDTO(5L, 6L, new BigDecimal(60), "second"),
+                new TransferRequestDTO(6L, 7L, BigDecimal.TEN, "third")));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Balance is not enough for this transaction", results.get(1).getMessage());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Account not found", results.get(2).getMessage());
+        assertEquals(new BigDecimal("40.00"), first.getBalance());
+        assertEquals(new BigDecimal("110.00"), second.getBalance());
+        assertEquals(1.0, meterRegistry.get("transfer.rejected").tag("reason", "insufficient_balance").counter().count());
+        assertEquals(1.0, meterRegistry.get("transfer.rejected").tag("reason", "account_not_found").counter().count());
+    }
 
+    @Test
+    public void should_return_history_in_page_order_with_accounts_fetched_in_one_query() {
+        Account owner = prepareAccount(1L, new BigDecimal(100), AccountStatus.ACTIVE, true, 123L, AccountType.CHECKINGS);
+        Account other = prepareAccount(2L, new BigDecimal(100), AccountStatus.ACTIVE, true, 125L, AccountType.CHECKINGS);
+        Transaction older = new Transaction(7L, owner, other, BigDecimal.ONE, "older", new Date(1000));
+        Transaction newer = new Transaction(9L, other, owner, BigDecimal.TEN, "newer", new Date(2000));
+        when(transactionRepository.findHistoryPageIds(any(), any(), any(), anyInt())).thenReturn(List.<Number>of(9L, 7L));
+        when(transactionRepository.findAllWithAccountsByIdIn(List.of(9L, 7L))).thenReturn(List.of(older, newer));
+        when(transactionMapper.convertToDto(any())).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            TransactionDTO transactionDTO = new TransactionDTO();
+            transactionDTO.setMessage(transaction.getMessage());
+            return transactionDTO;
+        });
+
+        CursorPageDTO<TransactionDTO> page = transactionService.findTransactionHistory(1L, null, 2);
+
+        assertEquals("newer", page.getContent().get(0).getMessage());
+        assertEquals("older", page.getContent().get(1).getMessage());
+        assertEquals("1000:7", page.getNextCursor());
+    }
 
-    private AccountDTO prepareAccountDTO(Long id, BigDecimal balance,
-                                         AccountStatus accountStatus, boolean verified, Long userId, AccountType accountType) {
+    private Account prepareAccount(Long id, BigDecimal balance,
+                                   AccountStatus accountStatus, boolean verified, Long userId, AccountType accountType) {
 
-        AccountDTO account = new AccountDTO();
+        Account account = new Account();
         account.setId(id);
         account.setBalance(balance);
         account.setAccountStatus(accountStatus);
@@ -290,4 +391,12 @@ public class TransactionServiceTest {
         return  account;
     }
 
+    private AccountDTO prepareAccountDTO(Account account) {
+        AccountDTO accountDTO = new AccountDTO();
+        accountDTO.setId(account.getId());
+        accountDTO.setAccountStatus(account.getAccountStatus());
+        accountDTO.setAccountType(account.getAccountType());
+        return accountDTO;
+    }
+
 }
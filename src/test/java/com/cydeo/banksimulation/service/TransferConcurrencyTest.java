@@ -0,0 +1,126 @@
+package com.cydeo.banksimulation.service;
+
+import com.cydeo.banksimulation.entity.Account;
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import com.cydeo.banksimulation.exception.BalanceNotSufficientException;
+import com.cydeo.banksimulation.repository.AccountRepository;
+import com.cydeo.banksimulation.repository.LedgerEntryRepository;
+import com.cydeo.banksimulation.repository.TransactionRepository;
+import com.cydeo.banksimulation.service.impl.LedgerServiceImpl;
+import com.cydeo.banksimulation.service.impl.TransferEngineImpl;
+import com.cydeo.banksimulation.service.impl.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfers;MODE=PostgreSQL;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.hikari.maximum-pool-size=16"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TransferEngineImpl.class, LedgerServiceImpl.class, TransferMetrics.class, SimpleMeterRegistry.class})
+public class TransferConcurrencyTest {
+
+    private static final int ACCOUNT_COUNT = 20;
+    private static final int TRANSFER_COUNT = 4000;
+    private static final int THREAD_COUNT = 16;
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Test
+    public void should_keep_total_balance_constant_under_concurrent_transfers() throws Exception {
+        List<Long> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountIds.add(accountRepository.save(prepareAccount(new BigDecimal(1000))).getId());
+        }
+        BigDecimal totalBefore = totalBalance();
+
+        Random random = new Random(42);
+        List<Callable<Boolean>> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFER_COUNT; i++) {
+            Long senderId = accountIds.get(random.nextInt(ACCOUNT_COUNT));
+            Long receiverId = accountIds.get(random.nextInt(ACCOUNT_COUNT));
+            if (senderId.equals(receiverId)) {
+                receiverId = accountIds.get((accountIds.indexOf(senderId) + 1) % ACCOUNT_COUNT);
+            }
+            BigDecimal amount = new BigDecimal(random.nextInt(50) + 1);
+            Long finalReceiverId = receiverId;
+            transfers.add(() -> {
+                try {
+                    transferEngine.transfer(amount, new Date(), senderId, finalReceiverId, "stress");
+                    return true;
+                } catch (BalanceNotSufficientException e) {
+                    return false;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        long completed = 0;
+        try {
+            for (Future<Boolean> result : executor.invokeAll(transfers)) {
+                if (result.get()) {
+                    completed++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, totalBefore.compareTo(totalBalance()));
+        assertEquals(completed, transactionRepository.count());
+        assertEquals(2 * completed, ledgerEntryRepository.count());
+        assertTrue(accountRepository.findAll().stream().allMatch(account -> new BigDecimal(1000)
+                .add(BigDecimal.valueOf(ledgerEntryRepository.sumAfter(account.getId(), 0L, new Date()), 2))
+                .compareTo(account.getBalance()) == 0));
+        assertTrue(accountRepository.findAll().stream()
+                .allMatch(account -> account.getBalance().compareTo(BigDecimal.ZERO) > 0));
+    }
+
+    private BigDecimal totalBalance() {
+        return accountRepository.findAll().stream().map(Account::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private Account prepareAccount(BigDecimal balance) {
+        Account account = new Account();
+        account.setBalance(balance);
+        account.setAccountStatus(AccountStatus.ACTIVE);
+        account.setOtpVerified(true);
+        account.setUserId(123L);
+        account.setPhoneNumber("121165465");
+        account.setCreationDate(new Date());
+        account.setAccountType(AccountType.CHECKINGS);
+        return account;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.cydeo.banksimulation.util;
+
+import com.cydeo.banksimulation.enums.CircuitState;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(3, 1000, now::get);
+
+    @Test
+    public void should_open_after_consecutive_failures_and_reject_calls() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(1, circuitBreaker.getRejectedCalls());
+    }
+
+    @Test
+    public void should_let_a_single_trial_through_once_open_period_is_over() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+        now.addAndGet(1000);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void should_reopen_when_trial_call_fails() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+        now.addAndGet(1000);
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void should_let_a_new_trial_through_when_trial_never_reports_back() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+        now.addAndGet(1000);
+        assertTrue(circuitBreaker.tryAcquire());
+
+        now.addAndGet(999);
+        assertFalse(circuitBreaker.tryAcquire());
+        now.addAndGet(1);
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+    }
+
+}
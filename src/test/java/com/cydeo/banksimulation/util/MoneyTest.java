@@ -0,0 +1,73 @@
+package com.cydeo.banksimulation.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    private static final int SAMPLES = 100_000;
+    private static final BigDecimal MIN = BigDecimal.valueOf(Long.MIN_VALUE, Money.SCALE);
+    private static final BigDecimal MAX = BigDecimal.valueOf(Long.MAX_VALUE, Money.SCALE);
+
+    private final Random random = new Random(20221018L);
+
+    @Test
+    public void should_match_big_decimal_arithmetic_or_reject_overflow() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal a = randomAmount();
+            BigDecimal b = randomAmount();
+            Money left = Money.of(a);
+            Money right = Money.of(b);
+
+            assertSameResult(a.add(b), () -> left.plus(right));
+            assertSameResult(a.subtract(b), () -> left.minus(right));
+            assertSameResult(a.negate(), left::negate);
+            assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(left.compareTo(right)));
+            assertEquals(a.signum() > 0, left.isPositive());
+            assertEquals(0, a.compareTo(left.toBigDecimal()));
+        }
+    }
+
+    @Test
+    public void should_reject_amounts_that_need_rounding_or_do_not_fit() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("10.001")));
+        assertThrows(ArithmeticException.class, () -> Money.of(MAX.add(new BigDecimal("0.01"))));
+        assertEquals(Money.ofMinor(1000), Money.of(new BigDecimal("10")));
+        assertEquals(Money.ofMinor(1000), Money.of(new BigDecimal("10.000")));
+        assertEquals(new BigDecimal("10.00"), Money.ofMinor(1000).toBigDecimal());
+    }
+
+    private void assertSameResult(BigDecimal expected, MoneyOperation operation) {
+        if (expected.compareTo(MIN) < 0 || expected.compareTo(MAX) > 0) {
+            assertThrows(ArithmeticException.class, operation::apply);
+        } else {
+            assertEquals(0, expected.compareTo(operation.apply().toBigDecimal()));
+        }
+    }
+
+    // mostly everyday amounts, sometimes values near the edges of the long range to exercise overflow
+    private BigDecimal randomAmount() {
+        long minorUnits;
+        switch (random.nextInt(4)) {
+            case 0:
+                minorUnits = random.nextLong();
+                break;
+            case 1:
+                minorUnits = random.nextBoolean() ? Long.MAX_VALUE - random.nextInt(1000) : Long.MIN_VALUE + random.nextInt(1000);
+                break;
+            default:
+                minorUnits = random.nextInt(10_000_000) - 5_000_000;
+                break;
+        }
+        return BigDecimal.valueOf(minorUnits, Money.SCALE);
+    }
+
+    private interface MoneyOperation {
+        Money apply();
+    }
+
+}
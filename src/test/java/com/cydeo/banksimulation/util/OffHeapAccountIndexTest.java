@@ -0,0 +1,75 @@
+package com.cydeo.banksimulation.util;
+
+import com.cydeo.banksimulation.enums.AccountStatus;
+import com.cydeo.banksimulation.enums.AccountType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapAccountIndexTest {
+
+    @Test
+    public void should_read_back_every_field() {
+        OffHeapAccountIndex index = new OffHeapAccountIndex(16);
+        index.put(7, AccountStatus.DELETED, AccountType.SAVINGS, 123L, true, -2550);
+        index.put(8, AccountStatus.ACTIVE, null, null, null, 0);
+
+        OffHeapAccountIndex.Entry entry = new OffHeapAccountIndex.Entry();
+        assertTrue(index.read(7, entry));
+        assertEquals(7, entry.getAccountId());
+        assertEquals(AccountStatus.DELETED, entry.getAccountStatus());
+        assertEquals(AccountType.SAVINGS, entry.getAccountType());
+        assertEquals(123L, entry.getUserId());
+        assertTrue(entry.getOtpVerified());
+        assertEquals(-2550, entry.getBalanceMinor());
+
+        assertTrue(index.read(8, entry));
+        assertNull(entry.getAccountType());
+        assertNull(entry.getUserId());
+        assertNull(entry.getOtpVerified());
+        assertFalse(index.read(9, entry));
+    }
+
+    @Test
+    public void should_only_replace_entries_on_put() {
+        OffHeapAccountIndex index = new OffHeapAccountIndex(16);
+        index.put(1, AccountStatus.ACTIVE, AccountType.CHECKINGS, 1L, false, 100);
+
+        assertFalse(index.putIfAbsent(1, AccountStatus.DELETED, AccountType.CHECKINGS, 1L, false, 100));
+        assertTrue(index.updateBalance(1, 250));
+        assertFalse(index.updateBalance(2, 250));
+        index.put(1, AccountStatus.ACTIVE, AccountType.CHECKINGS, 1L, true, 300);
+
+        OffHeapAccountIndex.Entry entry = new OffHeapAccountIndex.Entry();
+        assertTrue(index.read(1, entry));
+        assertEquals(AccountStatus.ACTIVE, entry.getAccountStatus());
+        assertTrue(entry.getOtpVerified());
+        assertEquals(300, entry.getBalanceMinor());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void should_grow_past_the_expected_accounts() {
+        OffHeapAccountIndex index = new OffHeapAccountIndex(0);
+        for (long id = 1; id <= 100_000; id++) {
+            index.put(id, AccountStatus.ACTIVE, AccountType.CHECKINGS, id % 10, id % 2 == 0, id * 100);
+        }
+
+        assertEquals(100_000, index.size());
+        assertTrue(index.capacity() >= 100_000);
+        OffHeapAccountIndex.Entry entry = new OffHeapAccountIndex.Entry();
+        for (long id = 1; id <= 100_000; id++) {
+            assertTrue(index.read(id, entry));
+            assertEquals(id * 100, entry.getBalanceMinor());
+            assertEquals(id % 10, entry.getUserId());
+        }
+    }
+
+    @Test
+    public void should_reject_ids_that_mark_free_slots() {
+        OffHeapAccountIndex index = new OffHeapAccountIndex(16);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> index.put(0, AccountStatus.ACTIVE, AccountType.CHECKINGS, 1L, true, 0));
+    }
+}
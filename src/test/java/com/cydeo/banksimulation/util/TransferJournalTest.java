@@ -0,0 +1,107 @@
+package com.cydeo.banksimulation.util;
+
+import com.cydeo.banksimulation.util.TransferJournal.JournalRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransferJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void should_read_back_durable_records_in_order() throws IOException {
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE, 1)) {
+            journal.append(1, 2, 1050, 1000L, "rent");
+            long last = journal.append(2, 1, 25, 2000L, null);
+            journal.awaitDurable(last);
+
+            List<JournalRecord> records = journal.read(0, 10);
+
+            assertEquals(2, records.size());
+            assertEquals(1, records.get(0).getSequence());
+            assertEquals(1050, records.get(0).getAmountMinor());
+            assertEquals("rent", records.get(0).getMessage());
+            assertEquals(2, records.get(1).getSenderId());
+            assertEquals(2000L, records.get(1).getCreatedAt());
+            assertNull(records.get(1).getMessage());
+            assertTrue(journal.read(2, 10).isEmpty());
+        }
+    }
+
+    @Test
+    public void should_roll_segments_and_recover_after_reopen() throws IOException {
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE, 1)) {
+            for (int i = 0; i < 200; i++) {
+                journal.awaitDurable(journal.append(i, i + 1, i, i, "transfer " + i));
+            }
+        }
+        assertTrue(segments().size() > 1);
+
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE, 1)) {
+            assertEquals(200, journal.getLastSequence());
+            List<JournalRecord> records = journal.read(150, 100);
+            assertEquals(50, records.size());
+            assertEquals("transfer 150", records.get(0).getMessage());
+
+            assertEquals(201, journal.append(7, 8, 9, 10, null));
+        }
+    }
+
+    @Test
+    public void should_cut_off_a_torn_record_at_the_tail() throws IOException {
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE, 1)) {
+            journal.append(1, 2, 100, 1, "first");
+            journal.awaitDurable(journal.append(1, 2, 200, 2, "second"));
+        }
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // corrupt the amount of the second record, its checksum no longer matches
+            int secondRecord = 8 + 42 + "first".length();
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), secondRecord + 8 + 24);
+        }
+
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE, 1)) {
+            assertEquals(1, journal.getLastSequence());
+            assertEquals(2, journal.append(3, 4, 300, 3, "replacement"));
+        }
+    }
+
+    @Test
+    public void should_delete_projected_segments() throws IOException {
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE, 1)) {
+            long last = 0;
+            for (int i = 0; i < 200; i++) {
+                last = journal.append(i, i + 1, i, i, "transfer " + i);
+            }
+            journal.awaitDurable(last);
+            int before = segments().size();
+
+            journal.deleteUpTo(last);
+
+            assertEquals(1, segments().size());
+            assertTrue(before > 1);
+            assertEquals(200, journal.getLastSequence());
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}